@@ -0,0 +1,146 @@
+package com.badminton.benchmarks;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+import com.badminton.model.Court;
+import com.badminton.model.CourtStatus;
+import com.badminton.model.CourtType;
+import com.badminton.model.Student;
+import com.badminton.model.TimeSlot;
+import com.badminton.persistence.DurabilityMode;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import com.badminton.util.DefaultFeePolicy;
+import com.badminton.util.FeePolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试数据集
+ * 按 (预约数, 场地数) 生成一份固定随机种子的数据目录，缓存在 java.io.tmpdir/badminton-bench 下，
+ * 各基准和各次运行共用；需要修改数据的基准先复制一份再使用。
+ *
+ * 每个场地每天 8:00-22:00 共 14 个一小时时段，预约从 FIRST_DAY 起依次占满各场地各时段（不会冲突），
+ * 状态约 70% 已完成、20% 待确认、10% 已取消，已完成的预约约一半有评分。
+ */
+final class BenchmarkData {
+    static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    static final int FIRST_HOUR = 8;
+    static final int SLOTS_PER_DAY = 14;
+
+    private static final File ROOT = new File(System.getProperty("java.io.tmpdir"), "badminton-bench");
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 数据集覆盖的天数
+     */
+    static int days(int bookings, int courts) {
+        int perDay = courts * SLOTS_PER_DAY;
+        return (bookings + perDay - 1) / perDay;
+    }
+
+    static String courtId(int index) {
+        return String.format("C%03d", index + 1);
+    }
+
+    /**
+     * 学生数：平均每人 20 个预约，至少 100 人
+     */
+    static int students(int bookings) {
+        return Math.max(100, bookings / 20);
+    }
+
+    static String studentId(int index) {
+        return String.format("S%07d", index + 1);
+    }
+
+    /**
+     * 返回数据集目录，不存在时生成
+     */
+    static synchronized File dataset(int bookings, int courts) throws IOException {
+        File dir = new File(ROOT, bookings + "-" + courts);
+        File done = new File(dir, ".complete");
+        if (done.exists()) {
+            return dir;
+        }
+        deleteRecursively(dir.toPath());
+        generate(dir, bookings, courts);
+        Files.createFile(done.toPath());
+        return dir;
+    }
+
+    /**
+     * 将数据集复制到新的临时目录（供会修改数据的基准使用）
+     */
+    static File copy(int bookings, int courts) throws IOException {
+        File source = dataset(bookings, courts);
+        Path target = Files.createTempDirectory("badminton-bench-");
+        for (String name : new String[]{"students.json", "admins.json", "courts.json", "bookings.json"}) {
+            Path file = source.toPath().resolve(name);
+            if (Files.exists(file)) {
+                Files.copy(file, target.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        return target.toFile();
+    }
+
+    static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static void generate(File dir, int bookings, int courts) {
+        System.out.println("生成基准数据集：" + bookings + " 个预约，" + courts + " 个场地 -> " + dir);
+        JsonDB db = new JsonDB(dir.getPath());
+        db.setSnapshotPolicy(SnapshotPolicy.never());
+        db.setDurabilityMode(DurabilityMode.ASYNC, 1000);
+        Random random = new Random(bookings * 31L + courts);
+        FeePolicy feePolicy = new DefaultFeePolicy();
+
+        CourtType[] types = CourtType.values();
+        Court[] courtArray = new Court[courts];
+        for (int i = 0; i < courts; i++) {
+            courtArray[i] = new Court(courtId(i), types[i % types.length], CourtStatus.AVAILABLE, 0.0);
+            db.addCourt(courtArray[i]);
+        }
+        Student[] studentArray = new Student[students(bookings)];
+        for (int i = 0; i < studentArray.length; i++) {
+            studentArray[i] = new Student(studentId(i), "学生" + (i + 1), String.format("138%08d", i));
+            db.addStudent(studentArray[i]);
+        }
+
+        LocalDateTime createdAt = FIRST_DAY.atStartOfDay().minusDays(1);
+        for (int i = 0; i < bookings; i++) {
+            int court = i % courts;
+            int slotIndex = i / courts;
+            LocalDate date = FIRST_DAY.plusDays(slotIndex / SLOTS_PER_DAY);
+            LocalTime start = LocalTime.of(FIRST_HOUR + slotIndex % SLOTS_PER_DAY, 0);
+            TimeSlot slot = new TimeSlot(date, start, start.plusHours(1));
+
+            int p = random.nextInt(100);
+            BookingState state = p < 70 ? BookingState.COMPLETED : p < 90 ? BookingState.PENDING : BookingState.CANCELLED;
+            int rating = state == BookingState.COMPLETED && random.nextBoolean() ? 1 + random.nextInt(5) : 0;
+            Court c = courtArray[court];
+            db.addBooking(new Booking(String.format("BK%08X", i), studentArray[random.nextInt(studentArray.length)],
+                    c.getCourtId(), slot, state, feePolicy.computeFee(c.getType(), slot), rating, createdAt));
+        }
+        db.flush();
+        db.saveToFile();
+        db.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.badminton.benchmarks;
+
+import com.badminton.model.Booking;
+import com.badminton.model.Court;
+import com.badminton.model.TimeSlot;
+import com.badminton.persistence.DurabilityMode;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import com.badminton.service.BookingService;
+import com.badminton.service.CourtService;
+import com.badminton.util.BusinessException;
+import com.badminton.util.DefaultFeePolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冲突检测、创建预约和可用场地查询
+ * 查询的时段在数据集的日期范围内随机选取（起止为整点或半点），大部分与已有预约重叠；
+ * 创建预约依次占用数据集之后的空闲时段，每次都成功。日志使用 ASYNC 模式，
+ * 测量的是请求线程上的耗时，落盘开销见 PersistenceBenchmark。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class BookingBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int bookings;
+
+    @Param({"8", "64"})
+    public int courts;
+
+    private File dir;
+    private JsonDB db;
+    private BookingService bookingService;
+    private CourtService courtService;
+    private final String[] probeCourts = new String[PROBES];
+    private final TimeSlot[] probeSlots = new TimeSlot[PROBES];
+    private int probe;
+    private LocalDate nextDay;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.copy(bookings, courts);
+        db = JsonDB.loadFromFile(dir.getPath());
+        db.setSnapshotPolicy(SnapshotPolicy.never());
+        db.setDurabilityMode(DurabilityMode.ASYNC, 1000);
+        bookingService = new BookingService(db, new DefaultFeePolicy());
+        courtService = new CourtService(db);
+
+        Random random = new Random(42);
+        int days = BenchmarkData.days(bookings, courts);
+        for (int i = 0; i < PROBES; i++) {
+            LocalDate date = BenchmarkData.FIRST_DAY.plusDays(random.nextInt(days));
+            LocalTime start = LocalTime.of(BenchmarkData.FIRST_HOUR, 0)
+                    .plusMinutes(30L * random.nextInt(BenchmarkData.SLOTS_PER_DAY * 2 - 1));
+            probeCourts[i] = BenchmarkData.courtId(random.nextInt(courts));
+            probeSlots[i] = new TimeSlot(date, start, start.plusMinutes(30L * (1 + random.nextInt(4))));
+        }
+        nextDay = BenchmarkData.FIRST_DAY.plusDays(days + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+        BenchmarkData.deleteRecursively(dir.toPath());
+    }
+
+    @Benchmark
+    public boolean isConflict() {
+        int i = probe++ & (PROBES - 1);
+        return bookingService.isConflict(probeCourts[i], probeSlots[i]);
+    }
+
+    @Benchmark
+    public List<Court> listAvailableCourts() {
+        return courtService.listAvailableCourts(probeSlots[probe++ & (PROBES - 1)], null);
+    }
+
+    @Benchmark
+    public Booking createBooking() throws BusinessException {
+        int court = created % courts;
+        int slotIndex = created / courts;
+        created++;
+        if (slotIndex == BenchmarkData.SLOTS_PER_DAY) {
+            // 当天所有场地的时段已占满，换到下一天
+            nextDay = nextDay.plusDays(1);
+            created = 1;
+            court = 0;
+            slotIndex = 0;
+        }
+        LocalTime start = LocalTime.of(BenchmarkData.FIRST_HOUR + slotIndex, 0);
+        return bookingService.createBooking(BenchmarkData.studentId(court), BenchmarkData.courtId(court),
+                new TimeSlot(nextDay, start, start.plusHours(1)));
+    }
+}
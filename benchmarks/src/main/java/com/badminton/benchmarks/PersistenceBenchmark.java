@@ -0,0 +1,71 @@
+package com.badminton.benchmarks;
+
+import com.badminton.model.Student;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonDB 加载与保存快照
+ * loadFromFile 读取完整数据目录；saveToFile 先修改一名学生（学生文件和内嵌学生信息的预约文件都需重写），
+ * 再同步写快照，即一次变更之后的完整落盘。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PersistenceBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int bookings;
+
+    @Param({"8", "64"})
+    public int courts;
+
+    private File dir;
+    private JsonDB db;
+    private Student student;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkData.copy(bookings, courts);
+        db = JsonDB.loadFromFile(dir.getPath());
+        db.setSnapshotPolicy(SnapshotPolicy.never());
+        student = db.findStudentById(BenchmarkData.studentId(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+        BenchmarkData.deleteRecursively(dir.toPath());
+    }
+
+    @Benchmark
+    public JsonDB loadFromFile() {
+        return JsonDB.loadFromFile(dir.getPath());
+    }
+
+    @Benchmark
+    public void saveToFile() {
+        student.setPhone(String.format("139%08d", counter++ & 0xFFFF));
+        db.saveToFile();
+    }
+}
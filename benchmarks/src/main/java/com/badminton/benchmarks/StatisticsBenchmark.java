@@ -0,0 +1,110 @@
+package com.badminton.benchmarks;
+
+import com.badminton.model.CourtType;
+import com.badminton.persistence.JsonDB;
+import com.badminton.service.BookingReport;
+import com.badminton.service.StatisticsService;
+import com.badminton.service.UtilizationReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StatisticsService 的各个报表
+ * 时间段取数据集的后一半日期；即席报表按下午时段过滤，分别以顺序和并行方式执行。
+ * 数据只读，直接加载缓存的数据集目录。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class StatisticsBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int bookings;
+
+    @Param({"8", "64"})
+    public int courts;
+
+    private JsonDB db;
+    private StatisticsService statisticsService;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        db = JsonDB.loadFromFile(BenchmarkData.dataset(bookings, courts).getPath());
+        statisticsService = new StatisticsService(db);
+        int days = BenchmarkData.days(bookings, courts);
+        startDate = BenchmarkData.FIRST_DAY.plusDays(days / 2);
+        endDate = BenchmarkData.FIRST_DAY.plusDays(days - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Map<String, Double> computeCourtRatings() {
+        return statisticsService.computeCourtRatings();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Object>> getCourtRatingStatistics() {
+        return statisticsService.getCourtRatingStatistics();
+    }
+
+    @Benchmark
+    public int bookingCountsByPeriod() {
+        return statisticsService.bookingCountsByPeriod(startDate, endDate);
+    }
+
+    @Benchmark
+    public double earningsReport() {
+        return statisticsService.earningsReport(startDate, endDate);
+    }
+
+    @Benchmark
+    public Map<String, Double> earningsByCourt() {
+        return statisticsService.earningsByCourt(startDate, endDate);
+    }
+
+    @Benchmark
+    public Map<CourtType, Double> earningsByType() {
+        return statisticsService.earningsByType(startDate, endDate);
+    }
+
+    @Benchmark
+    public BookingReport buildReportSequential() {
+        return statisticsService.buildReport(startDate, endDate,
+                b -> b.getSlot().getStartSecondOfDay() >= 12 * 3600, StatisticsService.ExecutionMode.SEQUENTIAL);
+    }
+
+    @Benchmark
+    public BookingReport buildReportParallel() {
+        return statisticsService.buildReport(startDate, endDate,
+                b -> b.getSlot().getStartSecondOfDay() >= 12 * 3600, StatisticsService.ExecutionMode.PARALLEL);
+    }
+
+    @Benchmark
+    public UtilizationReport utilizationReport() {
+        return statisticsService.utilizationReport(startDate, endDate);
+    }
+}
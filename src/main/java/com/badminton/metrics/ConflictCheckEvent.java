@@ -0,0 +1,59 @@
+package com.badminton.metrics;
+
+import com.badminton.model.TimeSlot;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次预约冲突检测（JFR 事件）
+ * 通过 FlightEvents.conflictCheck 取得
+ */
+@Name("com.badminton.ConflictCheck")
+@Label("冲突检测")
+@Category({"Badminton", "Booking"})
+@Description("BookingService.isConflict：检测的场地和时段、逐个比较的预约数和结果")
+@StackTrace(false)
+public final class ConflictCheckEvent extends Event {
+    @Label("场地")
+    String courtId;
+
+    @Label("时段")
+    String slot;
+
+    @Label("比较的预约数")
+    @Description("占用位图无法判定时逐个比较的预约数，位图直接判定时为 0")
+    int candidates;
+
+    @Label("冲突")
+    boolean conflict;
+
+    // 只用来检查事件开关：不录制时不分配事件对象
+    private static final ConflictCheckEvent SWITCH = new ConflictCheckEvent();
+
+    static ConflictCheckEvent start() {
+        if (!SWITCH.isEnabled()) {
+            return null;
+        }
+        ConflictCheckEvent event = new ConflictCheckEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束并提交事件（未达到录制阈值时丢弃）
+     */
+    public void finish(String courtId, TimeSlot slot, int candidates, boolean conflict) {
+        end();
+        if (shouldCommit()) {
+            this.courtId = courtId;
+            this.slot = String.valueOf(slot);
+            this.candidates = candidates;
+            this.conflict = conflict;
+            commit();
+        }
+    }
+}
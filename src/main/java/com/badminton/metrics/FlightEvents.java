@@ -0,0 +1,47 @@
+package com.badminton.metrics;
+
+/**
+ * Java Flight Recorder 自定义事件的入口
+ * 只有运行时包含 jdk.jfr 模块（用 jlink 裁剪的运行时可能不包含）且正在录制对应事件时才返回事件对象，否则返回 null，
+ * 调用方据此跳过事件字段的计算；不录制时只有一次静态标志判断和事件开关检查，不分配事件对象，没有常驻开销。
+ * 事件类继承 jdk.jfr.Event，只在这里确认 jdk.jfr 存在后才会被加载，缺少 jdk.jfr 的运行时照常工作。
+ *
+ * 录制示例：java -XX:StartFlightRecording=duration=60s,filename=badminton.jfr ...，
+ * 在 JDK Mission Control 的“Badminton”分类下查看，与 GC、文件 I/O 等 JDK 事件在同一时间轴上对照。
+ */
+public final class FlightEvents {
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    private FlightEvents() {
+    }
+
+    /**
+     * 开始一个持久化事件（快照写入、数据文件加载、日志重放、日志批量写入）
+     */
+    public static PersistenceEvent persistence(String operation) {
+        return AVAILABLE ? PersistenceEvent.start(operation) : null;
+    }
+
+    /**
+     * 开始一个冲突检测事件
+     */
+    public static ConflictCheckEvent conflictCheck() {
+        return AVAILABLE ? ConflictCheckEvent.start() : null;
+    }
+
+    /**
+     * 开始一个统计报表事件
+     */
+    public static ReportEvent report() {
+        return AVAILABLE ? ReportEvent.start() : null;
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
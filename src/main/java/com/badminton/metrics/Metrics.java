@@ -0,0 +1,92 @@
+package com.badminton.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 监控指标注册表
+ * 每个操作的指标在首次取得时创建并注册到平台 MBeanServer，可用 JConsole 或 JMX 采集程序查看：
+ * 服务操作为 com.badminton:type=Service,service=类名,name=方法名，
+ * 持久化操作为 com.badminton:type=Persistence,name=操作名，读写量为 com.badminton:type=Persistence,name=IO。
+ * 指标按进程统计，同一个类的多个服务实例共用同一组指标。
+ */
+public final class Metrics {
+    public static final String DOMAIN = "com.badminton";
+
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static final PersistenceMetrics PERSISTENCE = new PersistenceMetrics();
+
+    static {
+        register(DOMAIN + ":type=Persistence,name=IO", PERSISTENCE, PersistenceMetricsMXBean.class);
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * 服务方法的指标，名称为“类名.方法名”
+     */
+    public static OperationMetrics service(Class<?> serviceClass, String method) {
+        String service = serviceClass.getSimpleName();
+        return operation(service + "." + method,
+                DOMAIN + ":type=Service,service=" + service + ",name=" + method);
+    }
+
+    /**
+     * 服务类全部方法的指标，供服务类在公开方法中按方法名包裹方法体
+     */
+    public static ServiceMetrics forService(Class<?> serviceClass) {
+        return new ServiceMetrics(serviceClass);
+    }
+
+    /**
+     * 持久化操作的指标，名称为“JsonDB.操作名”
+     */
+    public static OperationMetrics persistence(String operation) {
+        return operation("JsonDB." + operation, DOMAIN + ":type=Persistence,name=" + operation);
+    }
+
+    /**
+     * 持久化读写量计数
+     */
+    public static PersistenceMetrics io() {
+        return PERSISTENCE;
+    }
+
+    /**
+     * 已创建的全部操作指标（按名称排序）
+     */
+    public static List<OperationMetrics> operations() {
+        return new ArrayList<>(OPERATIONS.values());
+    }
+
+    private static OperationMetrics operation(String name, String objectName) {
+        return OPERATIONS.computeIfAbsent(name, key -> {
+            OperationMetrics metrics = new OperationMetrics(key);
+            register(objectName, metrics, OperationMetricsMXBean.class);
+            return metrics;
+        });
+    }
+
+    /**
+     * 注册失败（如 JMX 不可用）时只打印提示，指标仍照常统计
+     */
+    private static <T> void register(String objectName, T bean, Class<T> mxbeanInterface) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(bean, mxbeanInterface, true), name);
+            }
+        } catch (JMException | RuntimeException e) {
+            System.err.println("注册监控指标失败: " + objectName + " - " + e.getMessage());
+        }
+    }
+}
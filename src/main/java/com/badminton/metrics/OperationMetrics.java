@@ -0,0 +1,248 @@
+package com.badminton.metrics;
+
+import com.badminton.util.BusinessException;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 单个操作的调用次数、速率、延迟分布和失败分类
+ * 通过 Metrics 创建并注册为 MBean；服务方法经 ServiceMetrics 按方法名用 call/run/get 包裹方法体，
+ * 不便包裹的代码（如持久化路径）用 start 取得起始时间后调用 success/rejected/failed 之一。
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    /** 消息分类的上限，超出后归入“其他”，防止消息中带有可变内容时无限增长 */
+    private static final int MAX_CATEGORIES = 64;
+    private static final String OTHER_CATEGORY = "其他";
+
+    /**
+     * 可能抛出 BusinessException 的有返回值的方法体
+     */
+    public interface BusinessCall<T> {
+        T call() throws BusinessException;
+    }
+
+    /**
+     * 可能抛出 BusinessException 的无返回值的方法体
+     */
+    public interface BusinessAction {
+        void run() throws BusinessException;
+    }
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final RateMeter rate = new RateMeter();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> rejectionsByCategory = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private volatile long resetNanos = System.nanoTime();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public <T> T call(BusinessCall<T> body) throws BusinessException {
+        long start = start();
+        try {
+            T result = body.call();
+            success(start);
+            return result;
+        } catch (BusinessException e) {
+            rejected(start, e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            failed(start, e);
+            throw e;
+        }
+    }
+
+    public void run(BusinessAction body) throws BusinessException {
+        long start = start();
+        try {
+            body.run();
+            success(start);
+        } catch (BusinessException e) {
+            rejected(start, e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            failed(start, e);
+            throw e;
+        }
+    }
+
+    public <T> T get(Supplier<T> body) {
+        long start = start();
+        try {
+            T result = body.get();
+            success(start);
+            return result;
+        } catch (RuntimeException | Error e) {
+            failed(start, e);
+            throw e;
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void success(long start) {
+        record(start);
+    }
+
+    public void rejected(long start, BusinessException e) {
+        record(start);
+        rejected.increment();
+        increment(rejectionsByCategory, categoryOf(e.getMessage()));
+    }
+
+    /**
+     * 记录一次失败；e 为 null 时（失败已在别处处理，拿不到异常）只计入出错次数
+     */
+    public void failed(long start, Throwable e) {
+        record(start);
+        errors.increment();
+        if (e != null) {
+            increment(errorsByType, e.getClass().getSimpleName());
+        }
+    }
+
+    private void record(long start) {
+        long now = System.nanoTime();
+        latency.record(now - start);
+        rate.mark(now);
+    }
+
+    /**
+     * 消息分类：取第一个括号或冒号之前的部分（如“手机号格式不正确（应为11位数字…）”归为“手机号格式不正确”）
+     */
+    static String categoryOf(String message) {
+        if (message == null || message.isEmpty()) {
+            return OTHER_CATEGORY;
+        }
+        int end = message.length();
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '（' || c == '(' || c == '：' || c == ':') {
+                end = i;
+                break;
+            }
+        }
+        String category = message.substring(0, end).trim();
+        return category.isEmpty() ? OTHER_CATEGORY : category;
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            String bounded = counters.size() < MAX_CATEGORIES ? key : OTHER_CATEGORY;
+            counter = counters.computeIfAbsent(bounded, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    private static double micros(double nanos) {
+        return nanos / 1000.0;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRejectionsByCategory() {
+        return sums(rejectionsByCategory);
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        return sums(errorsByType);
+    }
+
+    @Override
+    public double getMeanRate() {
+        double seconds = (System.nanoTime() - resetNanos) / 1e9;
+        return seconds <= 0 ? 0 : getCount() / seconds;
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+        return rate.getRate(System.nanoTime());
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return micros(latency.getMean());
+    }
+
+    @Override
+    public double getP50Micros() {
+        return micros(latency.getValueAtPercentile(50));
+    }
+
+    @Override
+    public double getP90Micros() {
+        return micros(latency.getValueAtPercentile(90));
+    }
+
+    @Override
+    public double getP99Micros() {
+        return micros(latency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public double getP999Micros() {
+        return micros(latency.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return micros(latency.getMax());
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        rate.reset();
+        rejected.reset();
+        errors.reset();
+        rejectionsByCategory.clear();
+        errorsByType.clear();
+        resetNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s 次数=%d 拒绝=%d 错误=%d p50=%.1fus p99=%.1fus 最大=%.1fus",
+                name, getCount(), getRejectedCount(), getErrorCount(),
+                getP50Micros(), getP99Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,47 @@
+package com.badminton.metrics;
+
+import java.util.Map;
+
+/**
+ * 单个操作的监控指标（JMX 属性），延迟包括成功、被拒绝和出错的调用
+ */
+public interface OperationMetricsMXBean {
+    /** 操作名，如 BookingService.createBooking */
+    String getName();
+
+    /** 调用总次数 */
+    long getCount();
+
+    /** 因 BusinessException 被拒绝的次数 */
+    long getRejectedCount();
+
+    /** 抛出其他异常（或持久化失败）的次数 */
+    long getErrorCount();
+
+    /** 按 BusinessException 消息分类的拒绝次数 */
+    Map<String, Long> getRejectionsByCategory();
+
+    /** 按异常类型分类的出错次数 */
+    Map<String, Long> getErrorsByType();
+
+    /** 自启动（或上次重置）以来的平均每秒调用次数 */
+    double getMeanRate();
+
+    /** 最近一分钟的平均每秒调用次数 */
+    double getOneMinuteRate();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    /** 清空所有计数和延迟分布 */
+    void reset();
+}
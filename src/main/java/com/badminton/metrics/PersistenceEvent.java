@@ -0,0 +1,59 @@
+package com.badminton.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JsonDB 读写一个文件（JFR 事件），持续时间覆盖整个读写过程，包括落盘
+ * 通过 FlightEvents.persistence 取得
+ */
+@Name("com.badminton.Persistence")
+@Label("JsonDB 读写")
+@Category({"Badminton", "Persistence"})
+@Description("快照写入、数据文件加载、日志重放和日志批量写入")
+@StackTrace(false)
+public final class PersistenceEvent extends Event {
+    @Label("操作")
+    String operation;
+
+    @Label("文件")
+    String file;
+
+    @Label("记录数")
+    long records;
+
+    @Label("字节数")
+    @DataAmount
+    long bytes;
+
+    // 只用来检查事件开关：不录制时不分配事件对象
+    private static final PersistenceEvent SWITCH = new PersistenceEvent();
+
+    static PersistenceEvent start(String operation) {
+        if (!SWITCH.isEnabled()) {
+            return null;
+        }
+        PersistenceEvent event = new PersistenceEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束并提交事件（未达到录制阈值时丢弃）
+     */
+    public void finish(String file, long records, long bytes) {
+        end();
+        if (shouldCommit()) {
+            this.file = file;
+            this.records = records;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.badminton.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 持久化读写量计数，由 JsonDB 在写快照、提交日志和加载时累加
+ */
+public final class PersistenceMetrics implements PersistenceMetricsMXBean {
+    private final LongAdder snapshotFiles = new LongAdder();
+    private final LongAdder snapshotBytes = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+    private final LongAdder journalRecords = new LongAdder();
+    private final LongAdder journalBytes = new LongAdder();
+    private final LongAdder bytesLoaded = new LongAdder();
+    private final LongAdder recordsLoaded = new LongAdder();
+
+    PersistenceMetrics() {
+    }
+
+    public void snapshotFileWritten(long bytes) {
+        snapshotFiles.increment();
+        snapshotBytes.add(bytes);
+    }
+
+    public void snapshotWriteFailed() {
+        snapshotFailures.increment();
+    }
+
+    public void journalRecordWritten(long bytes) {
+        journalRecords.increment();
+        journalBytes.add(bytes);
+    }
+
+    public void loaded(long bytes, long records) {
+        bytesLoaded.add(bytes);
+        recordsLoaded.add(records);
+    }
+
+    @Override
+    public long getSnapshotFilesWritten() {
+        return snapshotFiles.sum();
+    }
+
+    @Override
+    public long getSnapshotBytesWritten() {
+        return snapshotBytes.sum();
+    }
+
+    @Override
+    public long getSnapshotWriteFailures() {
+        return snapshotFailures.sum();
+    }
+
+    @Override
+    public long getJournalRecordsWritten() {
+        return journalRecords.sum();
+    }
+
+    @Override
+    public long getJournalBytesWritten() {
+        return journalBytes.sum();
+    }
+
+    @Override
+    public long getBytesLoaded() {
+        return bytesLoaded.sum();
+    }
+
+    @Override
+    public long getRecordsLoaded() {
+        return recordsLoaded.sum();
+    }
+
+    @Override
+    public void reset() {
+        snapshotFiles.reset();
+        snapshotBytes.reset();
+        snapshotFailures.reset();
+        journalRecords.reset();
+        journalBytes.reset();
+        bytesLoaded.reset();
+        recordsLoaded.reset();
+    }
+}
@@ -0,0 +1,29 @@
+package com.badminton.metrics;
+
+/**
+ * 持久化读写量（JMX 属性），各持久化操作的耗时见 type=Persistence 下的操作指标
+ */
+public interface PersistenceMetricsMXBean {
+    /** 快照写出的 JSON 文件数 */
+    long getSnapshotFilesWritten();
+
+    /** 快照写出的字节数 */
+    long getSnapshotBytesWritten();
+
+    /** 快照写入失败的次数 */
+    long getSnapshotWriteFailures();
+
+    /** 提交到日志的记录数（ASYNC 模式下包括尚未写入文件的记录） */
+    long getJournalRecordsWritten();
+
+    /** 提交到日志的字节数 */
+    long getJournalBytesWritten();
+
+    /** 加载时读取的数据文件字节数 */
+    long getBytesLoaded();
+
+    /** 加载时读取的记录数（包括重放的日志记录） */
+    long getRecordsLoaded();
+
+    void reset();
+}
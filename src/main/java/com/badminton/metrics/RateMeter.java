@@ -0,0 +1,57 @@
+package com.badminton.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近一分钟的调用速率：60 个按秒轮转的计数槽
+ * 某一秒的第一次调用负责清空该槽上一轮的计数，与同一秒的其他调用并发时可能少计几次，结果是近似值。
+ */
+final class RateMeter {
+    private static final int WINDOW_SECONDS = 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS); // 每个槽当前计数所属的秒
+    private volatile long startSecond;
+
+    RateMeter() {
+        reset();
+    }
+
+    void mark(long nanoTime) {
+        long second = Math.floorDiv(nanoTime, NANOS_PER_SECOND);
+        int slot = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        long slotSecond = seconds.get(slot);
+        if (slotSecond != second && seconds.compareAndSet(slot, slotSecond, second)) {
+            counts.set(slot, 0);
+        }
+        counts.incrementAndGet(slot);
+    }
+
+    /**
+     * 最近一分钟（不含当前这一秒）的平均每秒次数；开始计数不足一分钟时按已经过的整秒数平均
+     */
+    double getRate(long nanoTime) {
+        long second = Math.floorDiv(nanoTime, NANOS_PER_SECOND);
+        long elapsed = Math.min(second - startSecond, WINDOW_SECONDS);
+        if (elapsed <= 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long slotSecond = seconds.get(i);
+            if (slotSecond < second && slotSecond >= second - elapsed) {
+                sum += counts.get(i);
+            }
+        }
+        return (double) sum / elapsed;
+    }
+
+    void reset() {
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            seconds.set(i, Long.MIN_VALUE);
+            counts.set(i, 0);
+        }
+        startSecond = Math.floorDiv(System.nanoTime(), NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,65 @@
+package com.badminton.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * 一次统计报表执行（JFR 事件）
+ * 通过 FlightEvents.report 取得
+ */
+@Name("com.badminton.Report")
+@Label("统计报表")
+@Category({"Badminton", "Statistics"})
+@Description("StatisticsService 的报表：报表名、日期范围、执行方式和扫描的预约数")
+@StackTrace(false)
+public final class ReportEvent extends Event {
+    @Label("报表")
+    String report;
+
+    @Label("开始日期")
+    String startDate;
+
+    @Label("结束日期")
+    String endDate;
+
+    @Label("执行方式")
+    String mode;
+
+    @Label("扫描的预约数")
+    @Description("读取汇总的报表为 0")
+    int bookingsScanned;
+
+    // 只用来检查事件开关：不录制时不分配事件对象
+    private static final ReportEvent SWITCH = new ReportEvent();
+
+    static ReportEvent start() {
+        if (!SWITCH.isEnabled()) {
+            return null;
+        }
+        ReportEvent event = new ReportEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * 结束并提交事件（未达到录制阈值时丢弃）
+     * @param mode 执行方式，读取汇总的报表为 null
+     */
+    public void finish(String report, LocalDate startDate, LocalDate endDate, String mode, int bookingsScanned) {
+        end();
+        if (shouldCommit()) {
+            this.report = report;
+            this.startDate = startDate != null ? startDate.toString() : null;
+            this.endDate = endDate != null ? endDate.toString() : null;
+            this.mode = mode;
+            this.bookingsScanned = bookingsScanned;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.badminton.metrics;
+
+import com.badminton.util.BusinessException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 一个服务类的方法指标
+ * 服务类持有一个实例（Metrics.forService），公开方法按方法名调用 call/run/get 包裹方法体，
+ * 方法体本身不涉及指标；各方法的 OperationMetrics 首次调用时通过 Metrics.service 创建，之后从本地缓存取得。
+ */
+public final class ServiceMetrics {
+    private final Class<?> serviceClass;
+    private final Map<String, OperationMetrics> methods = new ConcurrentHashMap<>();
+
+    ServiceMetrics(Class<?> serviceClass) {
+        this.serviceClass = serviceClass;
+    }
+
+    /**
+     * 方法的指标，名称为“类名.方法名”
+     */
+    public OperationMetrics of(String method) {
+        OperationMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, key -> Metrics.service(serviceClass, key));
+        }
+        return metrics;
+    }
+
+    public <T> T call(String method, OperationMetrics.BusinessCall<T> body) throws BusinessException {
+        return of(method).call(body);
+    }
+
+    public void run(String method, OperationMetrics.BusinessAction body) throws BusinessException {
+        of(method).run(body);
+    }
+
+    public <T> T get(String method, Supplier<T> body) {
+        return of(method).get(body);
+    }
+}
@@ -11,6 +11,7 @@ public class Admin implements Serializable {
     private String name;
     private String phone;
     private String password; // 简化处理，可拓展加密
+    private transient EntityChangeListener changeListener; // 存储层注册的变更监听器
 
     public Admin() {
     }
@@ -28,6 +29,7 @@ public class Admin implements Serializable {
 
     public void setAdminId(String adminId) {
         this.adminId = adminId;
+        fireChanged();
     }
 
     public String getName() {
@@ -36,6 +38,7 @@ public class Admin implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        fireChanged();
     }
 
     public String getPhone() {
@@ -44,6 +47,7 @@ public class Admin implements Serializable {
 
     public void setPhone(String phone) {
         this.phone = phone;
+        fireChanged();
     }
 
     public String getPassword() {
@@ -52,6 +56,20 @@ public class Admin implements Serializable {
 
     public void setPassword(String password) {
         this.password = password;
+        fireChanged();
+    }
+
+    /**
+     * 注册变更监听器（由存储层调用）
+     */
+    public void setChangeListener(EntityChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void fireChanged() {
+        if (changeListener != null) {
+            changeListener.entityChanged(this);
+        }
     }
 
     @Override
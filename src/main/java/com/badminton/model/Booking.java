@@ -5,20 +5,32 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongUnaryOperator;
 
 /**
  * 预约实体类
+ * 状态、评分和版本号压缩在一个 long（stamp）中：高 48 位为版本号，其后 8 位为评分，低 8 位为状态。
+ * 每次修改状态或评分版本号加一；compareAndSetState / compareAndSetRating 只有在状态和版本号
+ * 都与调用方读到的一致时才生效（一次 CAS），并发的取消与确认完成不会交错出非法状态，读取方无需加锁。
  */
 public class Booking implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static final int NULL_STATE = 0xFF;
+    private static final BookingState[] STATES = BookingState.values();
+    private static final AtomicLongFieldUpdater<Booking> STAMP =
+            AtomicLongFieldUpdater.newUpdater(Booking.class, "stamp");
+
     private String bookingId;
     private Student student;
     private String courtId;
     private TimeSlot slot;
-    private BookingState state;
+    private BookingState state; // 仅用于序列化，运行时以 stamp 为准
     private double fee; // 预约费用（在创建或确认时计算）
-    private int rating; // 学生对场地的评分（0-5），0表示未评分
+    private int rating; // 学生对场地的评分（0-5），0表示未评分；仅用于序列化，运行时以 stamp 为准
+    private transient volatile long stamp = pack(0, 0, null);
     private transient LocalDateTime createdAt; // 使用 transient 标记，手动序列化
+    private transient EntityChangeListener changeListener; // 存储层注册的变更监听器
 
     public Booking() {
     }
@@ -29,9 +41,10 @@ public class Booking implements Serializable {
         this.student = student;
         this.courtId = courtId;
         this.slot = slot;
-        this.state = state;
         this.fee = fee;
-        this.rating = rating != null ? rating : 0;
+        int r = rating != null ? rating : 0;
+        checkRating(r);
+        this.stamp = pack(0, r, state);
         this.createdAt = createdAt;
     }
 
@@ -41,6 +54,7 @@ public class Booking implements Serializable {
 
     public void setBookingId(String bookingId) {
         this.bookingId = bookingId;
+        fireChanged();
     }
 
     public Student getStudent() {
@@ -49,6 +63,7 @@ public class Booking implements Serializable {
 
     public void setStudent(Student student) {
         this.student = student;
+        fireChanged();
     }
 
     public String getCourtId() {
@@ -57,6 +72,7 @@ public class Booking implements Serializable {
 
     public void setCourtId(String courtId) {
         this.courtId = courtId;
+        fireChanged();
     }
 
     public TimeSlot getSlot() {
@@ -65,14 +81,39 @@ public class Booking implements Serializable {
 
     public void setSlot(TimeSlot slot) {
         this.slot = slot;
+        fireChanged();
     }
 
     public BookingState getState() {
-        return state;
+        return stateOf(stamp);
     }
 
     public void setState(BookingState state) {
-        this.state = state;
+        STAMP.updateAndGet(this, s -> pack(versionOf(s) + 1, ratingOf(s), state));
+        fireChanged();
+    }
+
+    /**
+     * 版本号：每次修改状态或评分加一
+     */
+    public long getVersion() {
+        return versionOf(stamp);
+    }
+
+    /**
+     * 设置版本号（加载数据和重放日志时使用）
+     */
+    public void setVersion(long version) {
+        STAMP.updateAndGet(this, s -> pack(version, ratingOf(s), stateOf(s)));
+        fireChanged();
+    }
+
+    /**
+     * 当前状态为 expectedState 且版本号为 expectedVersion 时将状态改为 newState，版本号加一
+     * @return 是否成功；失败说明读取之后已被其他线程修改，调用方应重新读取后再判断
+     */
+    public boolean compareAndSetState(BookingState expectedState, long expectedVersion, BookingState newState) {
+        return compareAndUpdate(expectedState, expectedVersion, s -> pack(versionOf(s) + 1, ratingOf(s), newState));
     }
 
     public double getFee() {
@@ -81,17 +122,62 @@ public class Booking implements Serializable {
 
     public void setFee(double fee) {
         this.fee = fee;
+        fireChanged();
     }
 
     public int getRating() {
-        return rating;
+        return ratingOf(stamp);
     }
 
     public void setRating(int rating) {
+        checkRating(rating);
+        STAMP.updateAndGet(this, s -> pack(versionOf(s) + 1, rating, stateOf(s)));
+        fireChanged();
+    }
+
+    /**
+     * 当前状态为 expectedState 且版本号为 expectedVersion 时设置评分，版本号加一
+     * @return 是否成功；失败说明读取之后已被其他线程修改
+     */
+    public boolean compareAndSetRating(BookingState expectedState, long expectedVersion, int rating) {
+        checkRating(rating);
+        return compareAndUpdate(expectedState, expectedVersion, s -> pack(versionOf(s) + 1, rating, stateOf(s)));
+    }
+
+    private static void checkRating(int rating) {
         if (rating < 0 || rating > 5) {
             throw new IllegalArgumentException("评分必须在0-5之间");
         }
-        this.rating = rating;
+    }
+
+    private boolean compareAndUpdate(BookingState expectedState, long expectedVersion, LongUnaryOperator update) {
+        long current = stamp;
+        if (stateOf(current) != expectedState || versionOf(current) != expectedVersion
+                || !STAMP.compareAndSet(this, current, update.applyAsLong(current))) {
+            return false;
+        }
+        fireChanged();
+        return true;
+    }
+
+    /**
+     * rating 须已通过 checkRating 校验（0-5），不做截断
+     */
+    private static long pack(long version, int rating, BookingState state) {
+        return (version << 16) | ((long) rating << 8) | (state != null ? state.ordinal() : NULL_STATE);
+    }
+
+    private static long versionOf(long stamp) {
+        return stamp >>> 16;
+    }
+
+    private static int ratingOf(long stamp) {
+        return (int) ((stamp >>> 8) & 0xFF);
+    }
+
+    private static BookingState stateOf(long stamp) {
+        int code = (int) (stamp & 0xFF);
+        return code == NULL_STATE ? null : STATES[code];
     }
 
     public LocalDateTime getCreatedAt() {
@@ -100,6 +186,20 @@ public class Booking implements Serializable {
 
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
+        fireChanged();
+    }
+
+    /**
+     * 注册变更监听器（由存储层调用）
+     */
+    public void setChangeListener(EntityChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void fireChanged() {
+        if (changeListener != null) {
+            changeListener.entityChanged(this);
+        }
     }
 
     @Override
@@ -109,9 +209,9 @@ public class Booking implements Serializable {
                 ", student=" + (student != null ? student.getStudentId() : "null") +
                 ", courtId='" + courtId + '\'' +
                 ", slot=" + slot +
-                ", state=" + state +
+                ", state=" + getState() +
                 ", fee=" + fee +
-                ", rating=" + rating +
+                ", rating=" + getRating() +
                 ", createdAt=" + createdAt +
                 '}';
     }
@@ -120,6 +220,9 @@ public class Booking implements Serializable {
      * 自定义序列化方法，处理 LocalDateTime 的序列化
      */
     private void writeObject(ObjectOutputStream out) throws IOException {
+        long current = stamp;
+        state = stateOf(current);
+        rating = ratingOf(current);
         out.defaultWriteObject();
         // 手动序列化 LocalDateTime
         out.writeObject(createdAt != null ? createdAt.toString() : null);
@@ -130,6 +233,11 @@ public class Booking implements Serializable {
      */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
+        // 旧数据中超出 0-5 的评分按未评分处理，不中断整个文件的加载
+        if (rating < 0 || rating > 5) {
+            rating = 0;
+        }
+        this.stamp = pack(0, rating, state);
         // 手动反序列化 LocalDateTime
         String createdAtStr = (String) in.readObject();
         this.createdAt = createdAtStr != null ? LocalDateTime.parse(createdAtStr) : null;
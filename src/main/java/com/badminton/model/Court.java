@@ -1,16 +1,29 @@
 package com.badminton.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * 场地实体类
+ * 状态和版本号压缩在一个 long（stamp）中：高 56 位为版本号，低 8 位为状态。
+ * 每次修改状态版本号加一，compareAndSetStatus 在状态和版本号都未变时才生效。
  */
 public class Court implements Serializable {
     private static final long serialVersionUID = 1L;
+    private static final int NULL_STATUS = 0xFF;
+    private static final CourtStatus[] STATUSES = CourtStatus.values();
+    private static final AtomicLongFieldUpdater<Court> STAMP =
+            AtomicLongFieldUpdater.newUpdater(Court.class, "stamp");
+
     private String courtId; // 场地编号
     private CourtType type;
-    private CourtStatus status;
+    private CourtStatus status; // 仅用于序列化，运行时以 stamp 为准
     private double baseScore; // 可用于评分统计基础值
+    private transient volatile long stamp = pack(0, null);
+    private transient EntityChangeListener changeListener; // 存储层注册的变更监听器
 
     public Court() {
     }
@@ -18,7 +31,7 @@ public class Court implements Serializable {
     public Court(String courtId, CourtType type, CourtStatus status, double baseScore) {
         this.courtId = courtId;
         this.type = type;
-        this.status = status;
+        this.stamp = pack(0, status);
         this.baseScore = baseScore;
     }
 
@@ -28,6 +41,7 @@ public class Court implements Serializable {
 
     public void setCourtId(String courtId) {
         this.courtId = courtId;
+        fireChanged();
     }
 
     public CourtType getType() {
@@ -36,14 +50,58 @@ public class Court implements Serializable {
 
     public void setType(CourtType type) {
         this.type = type;
+        fireChanged();
     }
 
     public CourtStatus getStatus() {
-        return status;
+        return statusOf(stamp);
     }
 
     public void setStatus(CourtStatus status) {
-        this.status = status;
+        STAMP.updateAndGet(this, s -> pack(versionOf(s) + 1, status));
+        fireChanged();
+    }
+
+    /**
+     * 版本号：每次修改状态加一
+     */
+    public long getVersion() {
+        return versionOf(stamp);
+    }
+
+    /**
+     * 设置版本号（加载数据和重放日志时使用）
+     */
+    public void setVersion(long version) {
+        STAMP.updateAndGet(this, s -> pack(version, statusOf(s)));
+        fireChanged();
+    }
+
+    /**
+     * 当前状态为 expectedStatus 且版本号为 expectedVersion 时将状态改为 newStatus，版本号加一
+     * @return 是否成功；失败说明读取之后已被其他线程修改
+     */
+    public boolean compareAndSetStatus(CourtStatus expectedStatus, long expectedVersion, CourtStatus newStatus) {
+        long current = stamp;
+        if (statusOf(current) != expectedStatus || versionOf(current) != expectedVersion
+                || !STAMP.compareAndSet(this, current, pack(expectedVersion + 1, newStatus))) {
+            return false;
+        }
+        fireChanged();
+        return true;
+    }
+
+    private static long pack(long version, CourtStatus status) {
+        return (version << 8) | (status != null ? status.ordinal() : NULL_STATUS);
+    }
+
+    private static long versionOf(long stamp) {
+        return stamp >>> 8;
+    }
+
+    private static CourtStatus statusOf(long stamp) {
+        int code = (int) (stamp & 0xFF);
+        return code == NULL_STATUS ? null : STATUSES[code];
     }
 
     public double getBaseScore() {
@@ -52,6 +110,20 @@ public class Court implements Serializable {
 
     public void setBaseScore(double baseScore) {
         this.baseScore = baseScore;
+        fireChanged();
+    }
+
+    /**
+     * 注册变更监听器（由存储层调用）
+     */
+    public void setChangeListener(EntityChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void fireChanged() {
+        if (changeListener != null) {
+            changeListener.entityChanged(this);
+        }
     }
 
     @Override
@@ -59,9 +131,18 @@ public class Court implements Serializable {
         return "Court{" +
                 "courtId='" + courtId + '\'' +
                 ", type=" + type +
-                ", status=" + status +
+                ", status=" + getStatus() +
                 ", baseScore=" + baseScore +
                 '}';
     }
-}
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        status = getStatus();
+        out.defaultWriteObject();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.stamp = pack(0, status);
+    }
+}
@@ -0,0 +1,10 @@
+package com.badminton.model;
+
+/**
+ * 实体变更监听器
+ * 实体的字段被修改时回调，存储层据此标记对应集合需要重新写入文件。
+ * 监听器字段均为 transient，不参与序列化。
+ */
+public interface EntityChangeListener {
+    void entityChanged(Object entity);
+}
@@ -11,6 +11,7 @@ public class Student implements Serializable {
     private String studentId; // 学号
     private String name;
     private String phone;
+    private transient EntityChangeListener changeListener; // 存储层注册的变更监听器
 
     public Student() {
     }
@@ -27,6 +28,7 @@ public class Student implements Serializable {
 
     public void setStudentId(String studentId) {
         this.studentId = studentId;
+        fireChanged();
     }
 
     public String getName() {
@@ -35,6 +37,7 @@ public class Student implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        fireChanged();
     }
 
     public String getPhone() {
@@ -43,6 +46,20 @@ public class Student implements Serializable {
 
     public void setPhone(String phone) {
         this.phone = phone;
+        fireChanged();
+    }
+
+    /**
+     * 注册变更监听器（由存储层调用）
+     */
+    public void setChangeListener(EntityChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void fireChanged() {
+        if (changeListener != null) {
+            changeListener.entityChanged(this);
+        }
     }
 
     @Override
@@ -9,44 +9,83 @@ import java.time.LocalTime;
 
 /**
  * 预约时段类
+ * 日期、开始时间、结束时间压缩在一个 long 中：
+ * 高 30 位为 epochDay（有符号），中间 17 位为开始时间的秒数，低 17 位为结束时间的秒数。
+ * 重叠判断和时长计算只做整数运算，不创建对象；getDate/getStart/getEnd 是对这个 long 的视图。
+ * 时间精度为秒（不足一秒的部分被舍去），按 packed 值比较即按 (日期, 开始, 结束) 排序。
  */
 public class TimeSlot implements Serializable {
     private static final long serialVersionUID = 1L;
-    private LocalDate date;
-    private LocalTime start; // 包含分钟
-    private LocalTime end;
+
+    private static final int SECOND_BITS = 17;
+    private static final long SECOND_MASK = (1L << SECOND_BITS) - 1;
+    private static final int NULL_SECOND = (int) SECOND_MASK; // 时间为 null
+    private static final int DAY_SHIFT = SECOND_BITS * 2;
+    private static final long MIN_EPOCH_DAY = -(1L << (63 - DAY_SHIFT)) + 1;
+    private static final long MAX_EPOCH_DAY = (1L << (63 - DAY_SHIFT)) - 1;
+    private static final long NULL_DAY = -(1L << (63 - DAY_SHIFT)); // 日期为 null
+
+    private transient long packed = pack(NULL_DAY, NULL_SECOND, NULL_SECOND);
 
     public TimeSlot() {
     }
 
     public TimeSlot(LocalDate date, LocalTime start, LocalTime end) {
-        this.date = date;
-        this.start = start;
-        this.end = end;
+        this.packed = pack(toEpochDay(date), toSecond(start), toSecond(end));
     }
 
     public LocalDate getDate() {
-        return date;
+        long day = getEpochDay();
+        return day == NULL_DAY ? null : LocalDate.ofEpochDay(day);
     }
 
     public void setDate(LocalDate date) {
-        this.date = date;
+        packed = pack(toEpochDay(date), getStartSecondOfDay(), getEndSecondOfDay());
     }
 
     public LocalTime getStart() {
-        return start;
+        int second = getStartSecondOfDay();
+        return second == NULL_SECOND ? null : LocalTime.ofSecondOfDay(second);
     }
 
     public void setStart(LocalTime start) {
-        this.start = start;
+        packed = pack(getEpochDay(), toSecond(start), getEndSecondOfDay());
     }
 
     public LocalTime getEnd() {
-        return end;
+        int second = getEndSecondOfDay();
+        return second == NULL_SECOND ? null : LocalTime.ofSecondOfDay(second);
     }
 
     public void setEnd(LocalTime end) {
-        this.end = end;
+        packed = pack(getEpochDay(), getStartSecondOfDay(), toSecond(end));
+    }
+
+    /**
+     * 压缩表示（日期、开始、结束）
+     */
+    public long getPacked() {
+        return packed;
+    }
+
+    public long getEpochDay() {
+        return packed >> DAY_SHIFT;
+    }
+
+    public int getStartSecondOfDay() {
+        return (int) ((packed >>> SECOND_BITS) & SECOND_MASK);
+    }
+
+    public int getEndSecondOfDay() {
+        return (int) (packed & SECOND_MASK);
+    }
+
+    /**
+     * 日期、开始时间、结束时间是否都已设置
+     */
+    public boolean isComplete() {
+        return getEpochDay() != NULL_DAY && getStartSecondOfDay() != NULL_SECOND
+                && getEndSecondOfDay() != NULL_SECOND;
     }
 
     /**
@@ -55,44 +94,69 @@ public class TimeSlot implements Serializable {
      * 所以重叠条件是取反
      */
     public boolean overlaps(TimeSlot other) {
-        if (other == null || !this.date.equals(other.date)) {
+        if (other == null || !isComplete() || !other.isComplete()
+                || getEpochDay() != other.getEpochDay()) {
             return false; // 不同日期不重叠
         }
         // 重叠条件：!(this.end <= other.start || other.end <= this.start)
-        return !(this.end.compareTo(other.start) <= 0 || other.end.compareTo(this.start) <= 0);
+        return getEndSecondOfDay() > other.getStartSecondOfDay()
+                && other.getEndSecondOfDay() > getStartSecondOfDay();
     }
 
     /**
      * 获取时段时长（分钟）
      */
     public long getDurationMinutes() {
-        return java.time.Duration.between(start, end).toMinutes();
+        return (getEndSecondOfDay() - getStartSecondOfDay()) / 60;
     }
 
     @Override
     public String toString() {
-        return date + " " + start + "-" + end;
+        return getDate() + " " + getStart() + "-" + getEnd();
+    }
+
+    private static long pack(long epochDay, int startSecond, int endSecond) {
+        return (epochDay << DAY_SHIFT) | ((long) startSecond << SECOND_BITS) | endSecond;
+    }
+
+    private static long toEpochDay(LocalDate date) {
+        if (date == null) {
+            return NULL_DAY;
+        }
+        long day = date.toEpochDay();
+        if (day < MIN_EPOCH_DAY || day > MAX_EPOCH_DAY) {
+            throw new IllegalArgumentException("日期超出支持范围: " + date);
+        }
+        return day;
+    }
+
+    private static int toSecond(LocalTime time) {
+        return time == null ? NULL_SECOND : time.toSecondOfDay();
     }
 
     /**
-     * 自定义序列化方法，处理 LocalDate 和 LocalTime 的序列化
+     * 自定义序列化方法：只写入压缩后的 long
      */
     private void writeObject(ObjectOutputStream out) throws IOException {
-        out.writeObject(date != null ? date.toString() : null);
-        out.writeObject(start != null ? start.toString() : null);
-        out.writeObject(end != null ? end.toString() : null);
+        out.writeObject(Long.valueOf(packed));
     }
 
     /**
-     * 自定义反序列化方法，处理 LocalDate 和 LocalTime 的反序列化
+     * 自定义反序列化方法
+     * 兼容旧格式（日期、开始时间、结束时间三个字符串，null 表示未设置）
      */
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        String dateStr = (String) in.readObject();
+        Object first = in.readObject();
+        if (first instanceof Long) {
+            this.packed = (Long) first;
+            return;
+        }
+        String dateStr = (String) first;
         String startStr = (String) in.readObject();
         String endStr = (String) in.readObject();
-        this.date = dateStr != null ? LocalDate.parse(dateStr) : null;
-        this.start = startStr != null ? LocalTime.parse(startStr) : null;
-        this.end = endStr != null ? LocalTime.parse(endStr) : null;
+        this.packed = pack(
+                toEpochDay(dateStr != null ? LocalDate.parse(dateStr) : null),
+                toSecond(startStr != null ? LocalTime.parse(startStr) : null),
+                toSecond(endStr != null ? LocalTime.parse(endStr) : null));
     }
 }
-
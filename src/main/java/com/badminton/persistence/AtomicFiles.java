@@ -0,0 +1,103 @@
+package com.badminton.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 原子文件替换
+ * 内容先写入同目录下的 .tmp 文件并通过 FileChannel.force 落盘，再原子地改名覆盖目标文件。
+ * 进程在任何时刻中断，目标文件要么是旧的完整版本，要么是新的完整版本，
+ * 最多留下一个未完成的 .tmp 文件，启动时由 deleteTempFiles 清理。
+ */
+public final class AtomicFiles {
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * 向输出流写入文件内容
+     */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * 以原子方式用 content 的输出替换 target
+     */
+    public static void write(File target, Content content) throws IOException {
+        File parentDir = target.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        File tmpFile = tempFileFor(target);
+        try (FileOutputStream fileOut = new FileOutputStream(tmpFile)) {
+            content.writeTo(fileOut);
+            fileOut.flush();
+            fileOut.getChannel().force(true);
+        } catch (IOException | RuntimeException e) {
+            tmpFile.delete();
+            throw e;
+        }
+        try {
+            Files.move(tmpFile.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmpFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(parentDir);
+    }
+
+    /**
+     * 删除目录下上次中断留下的 .tmp 文件（目标文件本身不受影响），返回删除的文件数
+     */
+    public static int deleteTempFiles(File dir) {
+        File[] leftovers = dir.listFiles((d, name) -> name.endsWith(TMP_SUFFIX));
+        if (leftovers == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (File leftover : leftovers) {
+            if (leftover.delete()) {
+                deleted++;
+                System.err.println("已删除未完成的临时文件: " + leftover);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 删除 target 对应的未完成临时文件
+     */
+    public static void deleteTempFile(File target) {
+        File tmpFile = tempFileFor(target);
+        if (tmpFile.exists() && tmpFile.delete()) {
+            System.err.println("已删除未完成的临时文件: " + tmpFile);
+        }
+    }
+
+    /**
+     * 将目录项（改名结果）落盘；部分平台不支持打开目录，此时忽略
+     */
+    private static void syncDirectory(File dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Windows 等平台不支持对目录 force
+        }
+    }
+
+    private static File tempFileFor(File target) {
+        return new File(target.getPath() + TMP_SUFFIX);
+    }
+}
@@ -0,0 +1,274 @@
+package com.badminton.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预约日志（预写式日志，追加写入）
+ * 每次变更（创建、取消、完成、评分、场地状态变更等）写成一行记录，
+ * 写入成本与历史数据量无关。启动时在最近一次快照（各 JSON 文件）之上重放。
+ *
+ * 记录格式：操作类型与各字段以制表符分隔，一行一条；
+ * 字段中的反斜杠、制表符、换行符会被转义，null 写作 \0。
+ */
+public class BookingJournal {
+    /** 创建预约：bookingId, studentId, name, phone, courtId, date, start, end, state, fee, rating, createdAt */
+    public static final String OP_CREATE = "CREATE";
+    /** 预约状态变更（取消/完成）：bookingId, state, version（修改后的版本号，旧记录没有） */
+    public static final String OP_STATE = "STATE";
+    /** 预约评分：bookingId, rating, version */
+    public static final String OP_RATE = "RATE";
+    /** 场地状态变更：courtId, status, version */
+    public static final String OP_COURT_STATUS = "COURT_STATUS";
+    /** 新增学生：studentId, name, phone */
+    public static final String OP_ADD_STUDENT = "ADD_STUDENT";
+    /** 新增管理员：adminId, name, phone, password */
+    public static final String OP_ADD_ADMIN = "ADD_ADMIN";
+    /** 新增场地：courtId, type, status, baseScore */
+    public static final String OP_ADD_COURT = "ADD_COURT";
+
+    private final File file;
+    private FileOutputStream fileOut;
+    private OutputStream out;
+    private volatile long recordCount; // 当前日志文件中的记录数
+    private volatile long byteCount;   // 当前日志文件的字节数
+
+    public BookingJournal(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * 追加一条记录并刷新到操作系统
+     */
+    public void append(String op, String... fields) throws IOException {
+        write(encode(op, fields));
+        flush();
+    }
+
+    /**
+     * 将一条记录编码为一行 UTF-8 字节（含换行符）
+     */
+    public static byte[] encode(String op, String... fields) {
+        StringBuilder line = new StringBuilder(64);
+        line.append(op);
+        for (String field : fields) {
+            line.append('\t');
+            escape(field, line);
+        }
+        line.append('\n');
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入一条已编码的记录（写入缓冲区，调用 flush 后才交给操作系统）
+     */
+    public void write(byte[] record) throws IOException {
+        if (out == null) {
+            File parentDir = file.getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                parentDir.mkdirs();
+            }
+            fileOut = new FileOutputStream(file, true);
+            out = new BufferedOutputStream(fileOut, 64 * 1024);
+        }
+        out.write(record);
+        recordCount++;
+        byteCount += record.length;
+    }
+
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * 刷新缓冲区并将日志内容落盘（FileChannel.force）
+     */
+    public void sync() throws IOException {
+        if (out != null) {
+            out.flush();
+            fileOut.getChannel().force(false);
+        }
+    }
+
+    /**
+     * 读取当前日志文件的所有完整记录，并以此初始化记录数和字节数
+     */
+    public List<String[]> readAll() throws IOException {
+        List<String[]> records = read(file);
+        recordCount = records.size();
+        byteCount = file.length();
+        return records;
+    }
+
+    /**
+     * 将当前日志文件改名为 segment，之后的记录写入新的日志文件
+     * segment 已存在（上一次快照未完成）时，把当前日志追加到 segment 末尾后清空日志，
+     * 这样 segment 始终包含尚未写入快照的全部记录。
+     * 调用方在 segment 中的记录全部写入快照后删除 segment
+     */
+    public void rotate(File segment) throws IOException {
+        close();
+        if (segment.exists()) {
+            if (file.exists()) {
+                appendTo(segment);
+                truncate();
+            }
+        } else if (file.exists() && !file.renameTo(segment)) {
+            throw new IOException("无法轮转日志文件: " + file);
+        }
+        recordCount = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * 将当前日志文件的内容追加到 target 并落盘
+     * target 末尾若有不完整的记录（写入时进程中断），先将其截掉，避免与追加的第一条记录连在一起
+     */
+    private void appendTo(File target) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.READ,
+                     StandardOpenOption.WRITE)) {
+            out.truncate(lastCompleteRecordEnd(out));
+            long position = out.size();
+            long size = in.size();
+            for (long done = 0; done < size; ) {
+                done += in.transferTo(done, size - done, out.position(position + done));
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * 返回最后一个换行符之后的位置（文件中完整记录的末尾）
+     */
+    private static long lastCompleteRecordEnd(FileChannel channel) throws IOException {
+        byte[] block = new byte[4096];
+        long end = channel.size();
+        while (end > 0) {
+            int length = (int) Math.min(block.length, end);
+            ByteBuffer buffer = ByteBuffer.wrap(block, 0, length);
+            while (buffer.hasRemaining() && channel.read(buffer, end - length + buffer.position()) >= 0) {
+                // 读满该块
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (block[i] == '\n') {
+                    return end - length + i + 1;
+                }
+            }
+            end -= length;
+        }
+        return 0;
+    }
+
+    /**
+     * 清空日志（所有记录已写入快照之后调用）
+     */
+    public void truncate() throws IOException {
+        close();
+        FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING).close();
+        recordCount = 0;
+        byteCount = 0;
+    }
+
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    /**
+     * 读取指定日志文件的所有完整记录
+     * 最后一行若没有换行符（写入时进程中断），视为不完整并丢弃
+     */
+    public static List<String[]> read(File file) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8))) {
+            StringBuilder line = new StringBuilder(128);
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == '\n') {
+                    if (line.length() > 0) {
+                        records.add(split(line));
+                    }
+                    line.setLength(0);
+                } else {
+                    line.append((char) c);
+                }
+            }
+            if (line.length() > 0) {
+                System.err.println("日志末尾存在不完整的记录，已忽略: " + file);
+            }
+        }
+        return records;
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("\\0");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+    }
+
+    private static String[] split(CharSequence line) {
+        List<String> fields = new ArrayList<>(12);
+        StringBuilder field = new StringBuilder();
+        boolean isNull = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(isNull ? null : field.toString());
+                field.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                switch (next) {
+                    case 't': field.append('\t'); break;
+                    case 'n': field.append('\n'); break;
+                    case 'r': field.append('\r'); break;
+                    case '0': isNull = true; break;
+                    default: field.append(next);
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(isNull ? null : field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
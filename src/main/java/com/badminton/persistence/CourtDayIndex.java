@@ -0,0 +1,252 @@
+package com.badminton.persistence;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+import com.badminton.model.TimeSlot;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 场地-日期区间索引
+ * 以 (courtId, date) 为键，保存该场地当天所有未取消的预约，按开始时间升序排列，
+ * 并维护当天的占用位图（OccupancyGrid）。
+ * 冲突检测先做位图掩码运算，只有时段未按格对齐时才在当天的少量预约中二分查找，与历史预约总数无关。
+ * 营业时间和位图粒度可通过系统属性 badminton.grid.open / badminton.grid.close（HH:mm）
+ * 和 badminton.grid.minutes 配置，默认全天、15 分钟一格。
+ *
+ * 线程安全：每个 (场地, 日期) 的数据是不可变对象，修改时在 ConcurrentHashMap.compute 中
+ * 整体替换，读取方无需加锁即可看到一致的预约列表和位图。
+ */
+public class CourtDayIndex {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final Map<Key, Day> index = new ConcurrentHashMap<>();
+    private final int openSecond;
+    private final int closeSecond;
+    private final int cellSeconds;
+
+    public CourtDayIndex() {
+        this(parseSecond(System.getProperty("badminton.grid.open", "00:00")),
+                parseSecond(System.getProperty("badminton.grid.close", "24:00")),
+                Integer.getInteger("badminton.grid.minutes", 15) * 60);
+    }
+
+    /**
+     * @param openSecond 营业开始时间（当天秒数）
+     * @param closeSecond 营业结束时间（当天秒数）
+     * @param cellSeconds 位图每格的秒数
+     */
+    public CourtDayIndex(int openSecond, int closeSecond, int cellSeconds) {
+        new OccupancyGrid(openSecond, closeSecond, cellSeconds); // 提前校验参数
+        this.openSecond = openSecond;
+        this.closeSecond = closeSecond;
+        this.cellSeconds = cellSeconds;
+    }
+
+    private static int parseSecond(String time) {
+        return "24:00".equals(time) ? SECONDS_PER_DAY : LocalTime.parse(time).toSecondOfDay();
+    }
+
+    /**
+     * 营业开始时间（当天秒数）
+     */
+    public int getOpenSecond() {
+        return openSecond;
+    }
+
+    /**
+     * 营业结束时间（当天秒数，24:00 为 86400）
+     */
+    public int getCloseSecond() {
+        return closeSecond;
+    }
+
+    /**
+     * 预约加入存储或状态变为未取消时调用
+     */
+    public void add(Booking booking) {
+        if (!isIndexable(booking)) {
+            return;
+        }
+        index.compute(keyOf(booking), (k, day) -> {
+            // 在 compute 内再检查一次状态：预约在加入索引前可能已被并发取消，
+            // 取消时的 remove 与这里按同一个键串行执行，已取消的预约不会留在索引中
+            if (booking.getState() == BookingState.CANCELLED) {
+                return day;
+            }
+            List<Booking> bookings = day != null ? day.bookings : Collections.<Booking>emptyList();
+            if (bookings.contains(booking)) {
+                return day;
+            }
+            // 插入到第一个开始时间大于它的位置，保持有序
+            List<Booking> updated = new ArrayList<>(bookings.size() + 1);
+            updated.addAll(bookings);
+            updated.add(upperBound(bookings, booking.getSlot().getStartSecondOfDay()), booking);
+            return newDay(updated);
+        });
+    }
+
+    /**
+     * 预约被取消时调用
+     */
+    public void remove(Booking booking) {
+        if (booking == null || booking.getCourtId() == null || booking.getSlot() == null
+                || !booking.getSlot().isComplete()) {
+            return;
+        }
+        index.computeIfPresent(keyOf(booking), (k, day) -> {
+            if (!day.bookings.contains(booking)) {
+                return day;
+            }
+            List<Booking> updated = new ArrayList<>(day.bookings);
+            updated.remove(booking);
+            return updated.isEmpty() ? null : newDay(updated);
+        });
+    }
+
+    private Day newDay(List<Booking> bookings) {
+        OccupancyGrid grid = new OccupancyGrid(openSecond, closeSecond, cellSeconds);
+        grid.rebuild(bookings);
+        return new Day(Collections.unmodifiableList(bookings), grid);
+    }
+
+    /**
+     * 预约状态变化后同步索引：取消则移出，否则确保在索引中
+     */
+    public void update(Booking booking) {
+        if (booking.getState() == BookingState.CANCELLED) {
+            remove(booking);
+        } else {
+            add(booking);
+        }
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * 检查指定场地在该时段是否已有未取消的预约
+     */
+    public boolean hasOverlap(String courtId, TimeSlot slot) {
+        return hasOverlap(courtId, slot, null);
+    }
+
+    /**
+     * 同 hasOverlap(courtId, slot)，examined 不为 null 时在 examined[0] 中返回逐个比较过的预约数
+     * （位图直接判定时为 0），供诊断使用
+     */
+    public boolean hasOverlap(String courtId, TimeSlot slot, int[] examined) {
+        if (courtId == null || slot == null || !slot.isComplete()) {
+            return false;
+        }
+        Day day = index.get(new Key(courtId, slot.getEpochDay()));
+        if (day == null) {
+            return false;
+        }
+        switch (day.grid.query(slot.getStartSecondOfDay(), slot.getEndSecondOfDay())) {
+            case OccupancyGrid.FREE:
+                return false;
+            case OccupancyGrid.OCCUPIED:
+                return true;
+            default:
+                break;
+        }
+        // 位图无法判定：开始时间 >= slot.end 的预约不可能重叠，只需检查其之前的预约
+        int end = upperBound(day.bookings, slot.getEndSecondOfDay() - 1);
+        for (int i = end - 1; i >= 0; i--) {
+            if (day.bookings.get(i).getSlot().overlaps(slot)) {
+                if (examined != null) {
+                    examined[0] = end - i;
+                }
+                return true;
+            }
+        }
+        if (examined != null) {
+            examined[0] = end;
+        }
+        return false;
+    }
+
+    /**
+     * 获取指定场地当天的未取消预约（按开始时间排序，只读）
+     */
+    public List<Booking> getBookings(String courtId, LocalDate date) {
+        Day day = index.get(new Key(courtId, date.toEpochDay()));
+        return day != null ? day.bookings : Collections.<Booking>emptyList();
+    }
+
+    /**
+     * 返回第一个开始时间（秒）大于 second 的下标
+     */
+    private int upperBound(List<Booking> day, int second) {
+        int lo = 0;
+        int hi = day.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (day.get(mid).getSlot().getStartSecondOfDay() <= second) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean isIndexable(Booking booking) {
+        return booking != null
+                && booking.getState() != BookingState.CANCELLED
+                && booking.getCourtId() != null
+                && booking.getSlot() != null
+                && booking.getSlot().isComplete();
+    }
+
+    private Key keyOf(Booking booking) {
+        return new Key(booking.getCourtId(), booking.getSlot().getEpochDay());
+    }
+
+    /**
+     * 某场地某天的未取消预约（按开始时间排序，只读）及其占用位图，创建后不再修改
+     */
+    private static final class Day {
+        private final List<Booking> bookings;
+        private final OccupancyGrid grid;
+
+        Day(List<Booking> bookings, OccupancyGrid grid) {
+            this.bookings = bookings;
+            this.grid = grid;
+        }
+    }
+
+    /**
+     * 索引键：场地编号 + 日期（epochDay）
+     */
+    private static final class Key {
+        private final String courtId;
+        private final long epochDay;
+
+        Key(String courtId, long epochDay) {
+            this.courtId = courtId;
+            this.epochDay = epochDay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return epochDay == key.epochDay && courtId.equals(key.courtId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * courtId.hashCode() + Long.hashCode(epochDay);
+        }
+    }
+}
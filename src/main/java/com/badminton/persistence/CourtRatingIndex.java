@@ -0,0 +1,134 @@
+package com.badminton.persistence;
+
+import com.badminton.model.Booking;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 场地评分汇总
+ * 以场地编号为键，保存该场地已评分预约的评分次数、评分总和和各分值（1-5）的次数，
+ * 评分时增量更新，加载时由全部预约重建；评分统计只需读取每个场地的汇总，与历史预约总数无关。
+ *
+ * 线程安全：每个场地的汇总是不可变对象，修改时在 ConcurrentHashMap.compute 中整体替换，
+ * 读取方无需加锁即可看到一致的次数、总和和分布。
+ */
+public class CourtRatingIndex {
+    private static final int MAX_RATING = 5;
+
+    private final Map<String, Summary> index = new ConcurrentHashMap<>();
+
+    /**
+     * 预约加入存储时调用（已有评分的预约计入汇总）
+     */
+    public void add(Booking booking) {
+        if (booking != null && booking.getCourtId() != null) {
+            update(booking.getCourtId(), 0, booking.getRating());
+        }
+    }
+
+    /**
+     * 预约评分由 previous 改为 rating 时调用（0 表示未评分，超出 1-5 的分值不计入汇总）
+     */
+    public void update(String courtId, int previous, int rating) {
+        if (courtId == null || previous == rating) {
+            return;
+        }
+        index.compute(courtId, (k, summary) -> {
+            long[] histogram = summary != null ? summary.histogram.clone() : new long[MAX_RATING + 1];
+            if (isRated(previous)) {
+                histogram[previous]--;
+            }
+            if (isRated(rating)) {
+                histogram[rating]++;
+            }
+            // 同一预约的两次评分并发时，汇总的更新顺序可能与评分顺序相反，某一分值会暂时为负；
+            // 只有所有分值都为 0 时才移除，最终结果与顺序无关
+            for (long n : histogram) {
+                if (n != 0) {
+                    return new Summary(histogram);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isRated(int rating) {
+        return rating > 0 && rating <= MAX_RATING;
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    /**
+     * 指定场地的评分汇总，没有评分时返回 Summary.EMPTY
+     */
+    public Summary get(String courtId) {
+        Summary summary = courtId != null ? index.get(courtId) : null;
+        return summary != null ? summary : Summary.EMPTY;
+    }
+
+    /**
+     * 所有有评分的场地的汇总（只读视图）
+     */
+    public Map<String, Summary> getAll() {
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * 单个场地的评分汇总，创建后不再修改
+     */
+    public static final class Summary {
+        public static final Summary EMPTY = new Summary(new long[MAX_RATING + 1]);
+
+        private final long[] histogram; // 下标为分值（1-5），下标 0 不使用
+        private final long count;
+        private final long sum;
+
+        Summary(long[] histogram) {
+            this.histogram = histogram;
+            long c = 0;
+            long s = 0;
+            for (int rating = 1; rating < histogram.length; rating++) {
+                c += histogram[rating];
+                s += rating * histogram[rating];
+            }
+            this.count = c;
+            this.sum = s;
+        }
+
+        /**
+         * 评分次数
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 评分总和
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        public double getAverage() {
+            return count > 0 ? (double) sum / count : 0.0;
+        }
+
+        /**
+         * 评为 rating 分（1-5）的次数
+         */
+        public long getCount(int rating) {
+            return rating > 0 && rating < histogram.length ? histogram[rating] : 0;
+        }
+
+        /**
+         * 各分值的次数，下标为分值（1-5），下标 0 恒为 0
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+    }
+}
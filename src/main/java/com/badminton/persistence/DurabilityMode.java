@@ -0,0 +1,9 @@
+package com.badminton.persistence;
+
+/**
+ * 日志持久化模式
+ */
+public enum DurabilityMode {
+    SYNC,   // 同步：记录写入文件后才返回
+    ASYNC   // 异步：立即返回，由后台线程在指定时间内批量写入
+}
@@ -3,6 +3,11 @@ package com.badminton.persistence;
 import com.badminton.model.*;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -24,6 +29,17 @@ public class InMemoryDB implements Serializable {
     private int courtCount;
     private int bookingCount;
 
+    // 主键哈希索引，不参与序列化，反序列化后重建
+    private transient Map<String, Student> studentIndex;
+    private transient Map<String, Admin> adminIndex;
+    private transient Map<String, Court> courtIndex;
+    private transient Map<String, Booking> bookingIndex;
+
+    // 修改计数（包括实体 setter 触发的修改），与上次保存时相同则 saveToFile 不重写文件
+    private transient long modCount;
+    private transient long savedModCount;
+    private transient EntityChangeListener changeListener;
+
     public InMemoryDB() {
         students = new Student[INITIAL_CAPACITY];
         admins = new Admin[INITIAL_CAPACITY];
@@ -33,6 +49,7 @@ public class InMemoryDB implements Serializable {
         adminCount = 0;
         courtCount = 0;
         bookingCount = 0;
+        rebuildIndexes();
     }
 
     // ========== Student 操作 ==========
@@ -41,15 +58,13 @@ public class InMemoryDB implements Serializable {
             resizeStudentArray();
         }
         students[studentCount++] = student;
+        studentIndex.putIfAbsent(student.getStudentId(), student);
+        student.setChangeListener(changeListener);
+        modCount++;
     }
 
     public Student findStudentById(String studentId) {
-        for (int i = 0; i < studentCount; i++) {
-            if (students[i] != null && students[i].getStudentId().equals(studentId)) {
-                return students[i];
-            }
-        }
-        return null;
+        return studentIndex.get(studentId);
     }
 
     public Student[] getStudents() {
@@ -58,6 +73,13 @@ public class InMemoryDB implements Serializable {
         return result;
     }
 
+    /**
+     * 学生的只读视图（不复制，只包含调用时已有的学生）
+     */
+    public List<Student> getStudentView() {
+        return view(students, studentCount);
+    }
+
     public int getStudentCount() {
         return studentCount;
     }
@@ -75,15 +97,13 @@ public class InMemoryDB implements Serializable {
             resizeAdminArray();
         }
         admins[adminCount++] = admin;
+        adminIndex.putIfAbsent(admin.getAdminId(), admin);
+        admin.setChangeListener(changeListener);
+        modCount++;
     }
 
     public Admin findAdminById(String adminId) {
-        for (int i = 0; i < adminCount; i++) {
-            if (admins[i] != null && admins[i].getAdminId().equals(adminId)) {
-                return admins[i];
-            }
-        }
-        return null;
+        return adminIndex.get(adminId);
     }
 
     public Admin[] getAdmins() {
@@ -92,6 +112,10 @@ public class InMemoryDB implements Serializable {
         return result;
     }
 
+    public List<Admin> getAdminView() {
+        return view(admins, adminCount);
+    }
+
     public int getAdminCount() {
         return adminCount;
     }
@@ -109,15 +133,13 @@ public class InMemoryDB implements Serializable {
             resizeCourtArray();
         }
         courts[courtCount++] = court;
+        courtIndex.putIfAbsent(court.getCourtId(), court);
+        court.setChangeListener(changeListener);
+        modCount++;
     }
 
     public Court findCourtById(String courtId) {
-        for (int i = 0; i < courtCount; i++) {
-            if (courts[i] != null && courts[i].getCourtId().equals(courtId)) {
-                return courts[i];
-            }
-        }
-        return null;
+        return courtIndex.get(courtId);
     }
 
     public Court[] getCourts() {
@@ -126,6 +148,10 @@ public class InMemoryDB implements Serializable {
         return result;
     }
 
+    public List<Court> getCourtView() {
+        return view(courts, courtCount);
+    }
+
     public int getCourtCount() {
         return courtCount;
     }
@@ -143,15 +169,13 @@ public class InMemoryDB implements Serializable {
             resizeBookingArray();
         }
         bookings[bookingCount++] = booking;
+        bookingIndex.putIfAbsent(booking.getBookingId(), booking);
+        booking.setChangeListener(changeListener);
+        modCount++;
     }
 
     public Booking findBookingById(String bookingId) {
-        for (int i = 0; i < bookingCount; i++) {
-            if (bookings[i] != null && bookings[i].getBookingId().equals(bookingId)) {
-                return bookings[i];
-            }
-        }
-        return null;
+        return bookingIndex.get(bookingId);
     }
 
     public Booking[] getBookings() {
@@ -160,10 +184,22 @@ public class InMemoryDB implements Serializable {
         return result;
     }
 
+    public List<Booking> getBookingView() {
+        return view(bookings, bookingCount);
+    }
+
     public int getBookingCount() {
         return bookingCount;
     }
 
+    /**
+     * 数组前 count 个元素的只读视图
+     * 新增只写入 count 之后的位置，扩容时换成新数组，已返回的视图内容不变
+     */
+    private static <T> List<T> view(T[] array, int count) {
+        return Collections.unmodifiableList(Arrays.asList(array).subList(0, count));
+    }
+
     private void resizeBookingArray() {
         int newSize = (int) (bookings.length * GROWTH_FACTOR) + 1;
         Booking[] newArray = new Booking[newSize];
@@ -171,11 +207,59 @@ public class InMemoryDB implements Serializable {
         bookings = newArray;
     }
 
+    /**
+     * 重建主键索引（同一主键出现多次时保留第一条，与顺序查找的结果一致），并注册变更监听器
+     */
+    private void rebuildIndexes() {
+        changeListener = e -> modCount++;
+        studentIndex = new HashMap<>();
+        for (int i = 0; i < studentCount; i++) {
+            if (students[i] != null) {
+                studentIndex.putIfAbsent(students[i].getStudentId(), students[i]);
+                students[i].setChangeListener(changeListener);
+            }
+        }
+        adminIndex = new HashMap<>();
+        for (int i = 0; i < adminCount; i++) {
+            if (admins[i] != null) {
+                adminIndex.putIfAbsent(admins[i].getAdminId(), admins[i]);
+                admins[i].setChangeListener(changeListener);
+            }
+        }
+        courtIndex = new HashMap<>();
+        for (int i = 0; i < courtCount; i++) {
+            if (courts[i] != null) {
+                courtIndex.putIfAbsent(courts[i].getCourtId(), courts[i]);
+                courts[i].setChangeListener(changeListener);
+            }
+        }
+        bookingIndex = new HashMap<>();
+        for (int i = 0; i < bookingCount; i++) {
+            if (bookings[i] != null) {
+                bookingIndex.putIfAbsent(bookings[i].getBookingId(), bookings[i]);
+                bookings[i].setChangeListener(changeListener);
+            }
+        }
+    }
+
+    /**
+     * 反序列化后重建主键索引
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildIndexes();
+    }
+
     // ========== 持久化操作 ==========
     public void saveToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(this);
+        File file = new File(DATA_FILE);
+        if (modCount == savedModCount && file.exists()) {
+            return; // 自上次保存（或加载）后没有修改
+        }
+        long version = modCount;
+        try {
+            saveToFile(file);
+            savedModCount = version;
         } catch (NotSerializableException e) {
             System.err.println("保存数据失败: 对象不可序列化 - " + e.getMessage());
             e.printStackTrace();
@@ -185,8 +269,21 @@ public class InMemoryDB implements Serializable {
         }
     }
 
+    /**
+     * 保存到指定文件（如生成数据的工具写入其他目录）
+     * 写入临时文件并落盘后原子替换，中断时目标文件仍是上一版完整数据
+     */
+    public void saveToFile(File file) throws IOException {
+        AtomicFiles.write(file, out -> {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(this);
+            oos.flush();
+        });
+    }
+
     public static InMemoryDB loadFromFile() {
         File file = new File(DATA_FILE);
+        AtomicFiles.deleteTempFile(file);
         if (!file.exists()) {
             return new InMemoryDB();
         }
@@ -0,0 +1,301 @@
+package com.badminton.persistence;
+
+import com.badminton.metrics.FlightEvents;
+import com.badminton.metrics.PersistenceEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志批量提交线程（group commit）
+ * 调用方只负责把记录编码后放入队列，由后台线程把一段时间内积累的记录合并成一批，
+ * 一次写入、一次落盘（FileChannel.force），磁盘 I/O 不再出现在请求线程上。
+ *
+ * SYNC 模式下调用方等待自己的记录所在批次落盘后才返回，多个线程并发提交时共用一次落盘；
+ * ASYNC 模式下调用方立即返回，最早的一条未写记录最多等待 maxDelayMillis 即被刷新。
+ * 默认模式可通过系统属性 badminton.durability（sync/async）和
+ * badminton.flushIntervalMs 覆盖。
+ */
+public class JournalWriter {
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+    private static final int MAX_BATCH_RECORDS = 1024; // 积累到该数量时不再等待，立即写入
+
+    private final BookingJournal journal;
+    private volatile DurabilityMode mode;
+    private volatile long maxDelayMillis;
+
+    // 以下字段由 queueLock 保护
+    private final Object queueLock = new Object();
+    private Batch pending = new Batch();  // 正在积累、尚未开始写入的批次
+    // ASYNC 模式下提交的记录写入失败，且尚未通过 flush/close 报告给调用方；报告后才清除
+    private IOException unreportedFailure;
+    private Thread thread;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    // 对日志文件本身的操作（批量写入、轮转、清空）由 fileLock 串行化
+    private final Object fileLock = new Object();
+
+    public JournalWriter(BookingJournal journal) {
+        this(journal, defaultMode(), Long.getLong("badminton.flushIntervalMs", DEFAULT_MAX_DELAY_MILLIS));
+    }
+
+    public JournalWriter(BookingJournal journal, DurabilityMode mode, long maxDelayMillis) {
+        this.journal = journal;
+        setMode(mode, maxDelayMillis);
+    }
+
+    private static DurabilityMode defaultMode() {
+        String value = System.getProperty("badminton.durability", "sync");
+        return "async".equalsIgnoreCase(value) ? DurabilityMode.ASYNC : DurabilityMode.SYNC;
+    }
+
+    /**
+     * 设置持久化模式
+     * @param maxDelayMillis ASYNC 模式下记录最多在内存中停留的时间（毫秒）
+     */
+    public void setMode(DurabilityMode mode, long maxDelayMillis) {
+        if (mode == null) {
+            throw new IllegalArgumentException("持久化模式不能为空");
+        }
+        this.mode = mode;
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        synchronized (queueLock) {
+            queueLock.notifyAll();
+        }
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public BookingJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 提交一条已编码的记录
+     * SYNC 模式下阻塞到记录所在批次落盘，该批次写入失败时抛出 IOException；
+     * ASYNC 模式下立即返回，写入失败由之后的 flush 或 close 抛出
+     */
+    public void submit(byte[] record) throws IOException {
+        synchronized (queueLock) {
+            if (closed) {
+                throw new IOException("日志写入线程已关闭");
+            }
+            ensureStarted();
+            Batch batch = pending;
+            if (batch.records.isEmpty()) {
+                batch.oldestNanos = System.nanoTime();
+            }
+            batch.records.add(record);
+            queueLock.notifyAll();
+            if (mode != DurabilityMode.SYNC) {
+                batch.asyncRecords++;
+                return;
+            }
+            while (!batch.done) {
+                try {
+                    queueLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待日志写入时被中断");
+                }
+            }
+            if (batch.failure != null) {
+                throw new IOException("日志批量写入失败: " + batch.failure.getMessage(), batch.failure);
+            }
+        }
+    }
+
+    /**
+     * 立即写入队列中的所有记录
+     * 此前以 ASYNC 模式提交的记录写入失败（包括后台线程写入失败）时抛出 IOException，每次失败只报告一次
+     */
+    public void flush() throws IOException {
+        synchronized (fileLock) {
+            writeBatch();
+        }
+        throwUnreportedFailure();
+    }
+
+    /**
+     * 先写完已提交的记录，再将日志轮转为 segment（见 BookingJournal.rotate）
+     */
+    public void rotate(File segment) throws IOException {
+        synchronized (fileLock) {
+            IOException failure = writeBatch();
+            if (failure != null) {
+                throw failure;
+            }
+            journal.rotate(segment);
+        }
+    }
+
+    /**
+     * 先写完已提交的记录，再清空日志（见 BookingJournal.truncate）
+     */
+    public void truncate() throws IOException {
+        synchronized (fileLock) {
+            IOException failure = writeBatch();
+            if (failure != null) {
+                throw failure;
+            }
+            journal.truncate();
+        }
+    }
+
+    /**
+     * 写完剩余记录，停止后台线程、关闭日志文件并移除退出钩子；可重复调用
+     * 此前以 ASYNC 模式提交的记录写入失败时抛出 IOException
+     */
+    public void close() throws IOException {
+        Thread writer;
+        Thread hook;
+        synchronized (queueLock) {
+            closed = true;
+            writer = thread;
+            hook = shutdownHook;
+            shutdownHook = null;
+            queueLock.notifyAll();
+        }
+        if (hook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // JVM 正在退出，钩子已在运行
+            }
+        }
+        if (writer != null && writer != Thread.currentThread()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (fileLock) {
+            writeBatch();
+            journal.close();
+        }
+        throwUnreportedFailure();
+    }
+
+    private void ensureStarted() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this::run, "json-db-journal");
+        thread.setDaemon(true);
+        thread.start();
+        // 界面退出时会调用 JsonDB.close；钩子只作兜底，在未关闭就退出 JVM 时写完 ASYNC 模式下尚未写入的记录，close 时移除
+        shutdownHook = new Thread(() -> {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.err.println("退出时写入日志失败: " + e.getMessage());
+            }
+        }, "json-db-journal-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private void throwUnreportedFailure() throws IOException {
+        IOException failure;
+        synchronized (queueLock) {
+            failure = unreportedFailure;
+            unreportedFailure = null;
+        }
+        if (failure != null) {
+            throw new IOException("此前提交的日志记录写入失败: " + failure.getMessage(), failure);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (queueLock) {
+                try {
+                    while (pending.records.isEmpty() && !closed) {
+                        queueLock.wait();
+                    }
+                    if (closed) {
+                        return; // 剩余记录由 close 写入
+                    }
+                    // ASYNC：等到最早的记录达到最大延迟，期间到达的记录合并为同一批
+                    while (mode == DurabilityMode.ASYNC && !closed && pending.records.size() < MAX_BATCH_RECORDS) {
+                        long remainingNanos = pending.oldestNanos + maxDelayMillis * 1_000_000L - System.nanoTime();
+                        if (remainingNanos <= 0 || pending.records.isEmpty()) {
+                            break;
+                        }
+                        queueLock.wait(Math.max(1, remainingNanos / 1_000_000L));
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            synchronized (fileLock) {
+                IOException failure = writeBatch();
+                if (failure != null) {
+                    System.err.println("写入日志失败: " + failure.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 取出正在积累的批次，一次写入、一次落盘，并唤醒等待该批次的调用方
+     * 写入失败时记录在批次上（SYNC 调用方各自收到），批次中有 ASYNC 记录时另外保留到 flush/close 报告；
+     * 返回本批次的失败，没有失败时返回 null。调用方必须持有 fileLock
+     */
+    private IOException writeBatch() {
+        Batch batch;
+        synchronized (queueLock) {
+            if (pending.records.isEmpty()) {
+                return null;
+            }
+            batch = pending;
+            pending = new Batch();
+        }
+        IOException failure = null;
+        PersistenceEvent event = FlightEvents.persistence("写入日志");
+        long bytes = 0;
+        try {
+            for (byte[] record : batch.records) {
+                journal.write(record);
+                bytes += record.length;
+            }
+            journal.sync();
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (event != null) {
+            event.finish(journal.getFile().getPath(), batch.records.size(), bytes);
+        }
+        synchronized (queueLock) {
+            batch.failure = failure;
+            batch.done = true;
+            if (failure != null && batch.asyncRecords > 0 && unreportedFailure == null) {
+                unreportedFailure = failure;
+            }
+            queueLock.notifyAll();
+        }
+        return failure;
+    }
+
+    /**
+     * 一批一起写入的记录；SYNC 调用方持有自己记录所在的批次，写入完成后从中读取结果
+     * 字段由 queueLock 保护
+     */
+    private static final class Batch {
+        final List<byte[]> records = new ArrayList<>();
+        long oldestNanos;   // 最早一条记录的提交时间
+        int asyncRecords;   // 以 ASYNC 模式提交的记录数
+        boolean done;       // 已写入或确定失败
+        IOException failure;
+    }
+}
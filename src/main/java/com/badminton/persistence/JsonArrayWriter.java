@@ -0,0 +1,166 @@
+package com.badminton.persistence;
+
+import com.badminton.model.Admin;
+import com.badminton.model.Booking;
+import com.badminton.model.Court;
+import com.badminton.model.Student;
+import com.badminton.model.TimeSlot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 逐条写入 JsonDB 数据文件（JSON 数组）的写入器
+ * 输出与 JsonDB 快照逐字节一致：JsonDB 写快照和生成数据的工具共用这里的格式定义。
+ * 每条记录写完即可丢弃，内存占用与记录数无关。
+ */
+public final class JsonArrayWriter<T> implements Closeable {
+    /**
+     * 向流中写入一个实体对象
+     */
+    private interface RecordWriter<T> {
+        void write(JsonStreamWriter writer, T item) throws IOException;
+    }
+
+    private final JsonStreamWriter writer;
+    private final RecordWriter<T> recordWriter;
+    private boolean empty = true;
+    private boolean finished;
+
+    private JsonArrayWriter(OutputStream out, RecordWriter<T> recordWriter) throws IOException {
+        this.writer = new JsonStreamWriter(out);
+        this.recordWriter = recordWriter;
+        writer.raw('[').newLine();
+    }
+
+    public static JsonArrayWriter<Student> students(OutputStream out) throws IOException {
+        return new JsonArrayWriter<>(out, JsonArrayWriter::writeStudent);
+    }
+
+    public static JsonArrayWriter<Admin> admins(OutputStream out) throws IOException {
+        return new JsonArrayWriter<>(out, JsonArrayWriter::writeAdmin);
+    }
+
+    public static JsonArrayWriter<Court> courts(OutputStream out) throws IOException {
+        return new JsonArrayWriter<>(out, JsonArrayWriter::writeCourt);
+    }
+
+    public static JsonArrayWriter<Booking> bookings(OutputStream out) throws IOException {
+        return new JsonArrayWriter<>(out, JsonArrayWriter::writeBooking);
+    }
+
+    /**
+     * 追加一条记录（null 写为 JSON null）
+     */
+    public void write(T item) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("数组已结束");
+        }
+        if (!empty) {
+            writer.raw(',').newLine();
+        }
+        empty = false;
+        writer.raw("  ");
+        if (item == null) {
+            writer.raw("null");
+        } else {
+            recordWriter.write(writer, item);
+        }
+    }
+
+    /**
+     * 已写入的字节数（包括缓冲区中尚未写出的部分）
+     */
+    public long getBytesWritten() {
+        return writer.getBytesWritten();
+    }
+
+    /**
+     * 写入数组结尾并刷新缓冲区，不关闭底层流（由调用方负责落盘和关闭）
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            if (!empty) {
+                writer.newLine();
+            }
+            writer.raw(']').newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * 写入数组结尾并关闭底层流
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeStudent(JsonStreamWriter w, Student student) throws IOException {
+        w.raw("{\n    \"studentId\": ").string(student.getStudentId())
+                .raw(",\n    \"name\": ").string(student.getName())
+                .raw(",\n    \"phone\": ").string(student.getPhone())
+                .raw("\n  }");
+    }
+
+    private static void writeAdmin(JsonStreamWriter w, Admin admin) throws IOException {
+        w.raw("{\n    \"adminId\": ").string(admin.getAdminId())
+                .raw(",\n    \"name\": ").string(admin.getName())
+                .raw(",\n    \"phone\": ").string(admin.getPhone())
+                .raw(",\n    \"password\": ").string(admin.getPassword())
+                .raw("\n  }");
+    }
+
+    private static void writeCourt(JsonStreamWriter w, Court court) throws IOException {
+        // 先读版本号：写入的版本号不会新于状态，重放日志时较新的修改不会被跳过
+        long version = court.getVersion();
+        w.raw("{\n    \"courtId\": ").string(court.getCourtId())
+                .raw(",\n    \"type\": \"").raw(court.getType().name())
+                .raw("\",\n    \"status\": \"").raw(court.getStatus().name())
+                .raw("\",\n    \"baseScore\": ").fixed2(court.getBaseScore())
+                .raw(",\n    \"version\": ").number(version)
+                .raw("\n  }");
+    }
+
+    private static void writeBooking(JsonStreamWriter w, Booking booking) throws IOException {
+        long version = booking.getVersion(); // 先读版本号，原因同 writeCourt
+        w.raw("{\n    \"bookingId\": ").string(booking.getBookingId())
+                .raw(",\n    \"student\": ");
+        if (booking.getStudent() != null) {
+            writeStudent(w, booking.getStudent());
+        } else {
+            w.raw("null");
+        }
+        w.raw(",\n    \"courtId\": ").string(booking.getCourtId())
+                .raw(",\n    \"slot\": ");
+        if (booking.getSlot() != null) {
+            writeTimeSlot(w, booking.getSlot());
+        } else {
+            w.raw("null");
+        }
+        w.raw(",\n    \"state\": \"").raw(booking.getState().name())
+                .raw("\",\n    \"fee\": ").fixed2(booking.getFee())
+                .raw(",\n    \"rating\": ").number(booking.getRating())
+                .raw(",\n    \"createdAt\": ");
+        if (booking.getCreatedAt() != null) {
+            w.raw('"').dateTime(booking.getCreatedAt()).raw('"');
+        } else {
+            w.raw("null");
+        }
+        w.raw(",\n    \"version\": ").number(version)
+                .raw("\n  }");
+    }
+
+    private static void writeTimeSlot(JsonStreamWriter w, TimeSlot slot) throws IOException {
+        w.raw("{\n      \"date\": \"").date(slot.getDate())
+                .raw("\",\n      \"start\": \"").time(slot.getStart())
+                .raw("\",\n      \"end\": \"").time(slot.getEnd())
+                .raw("\"\n    }");
+    }
+}
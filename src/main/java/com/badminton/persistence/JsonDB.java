@@ -1,5 +1,9 @@
 package com.badminton.persistence;
 
+import com.badminton.metrics.FlightEvents;
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.OperationMetrics;
+import com.badminton.metrics.PersistenceEvent;
 import com.badminton.model.*;
 
 import java.io.*;
@@ -8,131 +12,417 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * JSON数据库类，使用JSON文件存储数据（不依赖外部库）
+ * 新增和修改先在内存中生效，再写入日志；SYNC 模式下日志写入失败时修改方法抛出 UncheckedIOException
+ * （内存中的修改已生效，但未确认落盘），ASYNC 模式下的写入失败由 flush / close 抛出。
+ * 使用完毕后调用 close 停止日志写入线程并关闭日志文件。
  */
-public class JsonDB {
+public class JsonDB implements Closeable {
     private static final String DATA_DIR = "data";
-    private static final String STUDENTS_FILE = DATA_DIR + File.separator + "students.json";
-    private static final String ADMINS_FILE = DATA_DIR + File.separator + "admins.json";
-    private static final String COURTS_FILE = DATA_DIR + File.separator + "courts.json";
-    private static final String BOOKINGS_FILE = DATA_DIR + File.separator + "bookings.json";
+    private static final int LOCK_STRIPES = 64;
+    private static final long NO_VERSION = -1; // 旧格式日志记录没有版本号
+    // 持久化操作的耗时指标，读写字节数见 Metrics.io()
+    private static final OperationMetrics LOAD = Metrics.persistence("loadFromFile");
+    private static final OperationMetrics SAVE = Metrics.persistence("saveToFile");
+    private static final OperationMetrics BACKGROUND_SNAPSHOT = Metrics.persistence("backgroundSnapshot");
+    private static final OperationMetrics FLUSH = Metrics.persistence("flush");
+
+    private final String dataDir;
+    private final String studentsFile;
+    private final String adminsFile;
+    private final String courtsFile;
+    private final String bookingsFile;
+    private final String journalFile;
+    // 正在写入快照的日志段，快照完成后删除；启动时若仍存在则先于 journalFile 重放
+    private final String journalSegmentFile;
     
+    // 集合与索引均可被多个线程并发访问：学生、管理员、场地很少变化，使用写时复制列表；
+    // 预约只追加不删除，每次追加后发布不可变快照，统计和列表页取快照遍历，不阻塞写入方
     private List<Student> students;
     private List<Admin> admins;
     private List<Court> courts;
-    private List<Booking> bookings;
+    private SnapshotList<Booking> bookings;
+    // 主键哈希索引，新增时维护，加载时重建
+    private Map<String, Student> studentsById;
+    private Map<String, Admin> adminsById;
+    private Map<String, Court> courtsById;
+    private Map<String, Booking> bookingsById;
+    private Map<String, List<Booking>> bookingsByStudent; // 学号 -> 该学生的预约（按创建顺序）
+    private CourtDayIndex bookingIndex; // (场地, 日期) -> 未取消预约，用于冲突检测
+    private CourtRatingIndex ratingIndex; // 场地 -> 评分次数、总和和分布，评分时增量更新
+    private RevenueCube revenueCube; // 日期 × 场地/类型 × 状态 -> 预约数和费用，状态变化时增量更新
+    // 按 (场地, 日期) 分段的锁，保护“检查冲突 + 写入预约”，不同场地的预约互不阻塞
+    private final ReentrantLock[] bookingLocks = new ReentrantLock[LOCK_STRIPES];
+    private final Object snapshotLock = new Object(); // 保护快照调度（pendingSnapshot 等）
+    private BookingJournal journal; // 预约/场地状态变更日志
+    private JournalWriter journalWriter; // 日志批量提交线程
+    private SnapshotPolicy snapshotPolicy = SnapshotPolicy.defaults();
+    private ExecutorService snapshotExecutor; // 后台快照线程，首次需要时创建
+    private Future<?> pendingSnapshot;
+
+    // 各集合的修改版本号，任何修改（包括实体 setter）都会递增对应版本；
+    // 快照只重写版本号与上次写入时不同的文件
+    private static final int STUDENTS = 0;
+    private static final int ADMINS = 1;
+    private static final int COURTS = 2;
+    private static final int BOOKINGS = 3;
+    private final AtomicLongArray versions = new AtomicLongArray(4);
+    private final long[] savedVersions = new long[4]; // 只由写快照的一方访问
+    // 预约文件中内嵌了学生姓名和电话，学生变更时预约文件也需要重写
+    private final EntityChangeListener studentListener = e -> {
+        markDirty(STUDENTS);
+        markDirty(BOOKINGS);
+    };
+    private final EntityChangeListener adminListener = e -> markDirty(ADMINS);
+    private final EntityChangeListener courtListener = e -> markDirty(COURTS);
+    private final EntityChangeListener bookingListener = e -> markDirty(BOOKINGS);
+    private long lastLoadMillis;
 
     public JsonDB() {
-        students = new ArrayList<>();
-        admins = new ArrayList<>();
-        courts = new ArrayList<>();
-        bookings = new ArrayList<>();
+        this(DATA_DIR);
+    }
+
+    /**
+     * @param dataDir 数据目录（JSON 文件和日志所在目录）
+     */
+    public JsonDB(String dataDir) {
+        this.dataDir = dataDir;
+        this.studentsFile = dataDir + File.separator + "students.json";
+        this.adminsFile = dataDir + File.separator + "admins.json";
+        this.courtsFile = dataDir + File.separator + "courts.json";
+        this.bookingsFile = dataDir + File.separator + "bookings.json";
+        this.journalFile = dataDir + File.separator + "journal.log";
+        this.journalSegmentFile = journalFile + ".1";
+        students = new CopyOnWriteArrayList<>();
+        admins = new CopyOnWriteArrayList<>();
+        courts = new CopyOnWriteArrayList<>();
+        bookings = new SnapshotList<>();
+        studentsById = new ConcurrentHashMap<>();
+        adminsById = new ConcurrentHashMap<>();
+        courtsById = new ConcurrentHashMap<>();
+        bookingsById = new ConcurrentHashMap<>();
+        bookingsByStudent = new ConcurrentHashMap<>();
+        bookingIndex = new CourtDayIndex();
+        ratingIndex = new CourtRatingIndex();
+        revenueCube = new RevenueCube();
+        for (int i = 0; i < bookingLocks.length; i++) {
+            bookingLocks[i] = new ReentrantLock();
+        }
+        journal = new BookingJournal(new File(journalFile));
+        journalWriter = new JournalWriter(journal);
         
         // 确保data目录存在
-        File dataDir = new File(DATA_DIR);
-        if (!dataDir.exists()) {
-            dataDir.mkdirs();
+        File dir = new File(dataDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
         }
     }
 
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    /**
+     * 获取 (场地, 日期) 对应的分段锁
+     * 预约的“检查冲突 + 写入”以及状态变更须在该锁内进行；不同场地或日期通常落在不同分段，互不阻塞
+     */
+    public Lock lockFor(String courtId, LocalDate date) {
+        int h = (courtId != null ? courtId.hashCode() : 0) * 31
+                + (date != null ? Long.hashCode(date.toEpochDay()) : 0);
+        h ^= (h >>> 16);
+        return bookingLocks[h & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 获取预约所在 (场地, 日期) 的分段锁，取消、确认完成等状态变更使用
+     */
+    public Lock lockFor(Booking booking) {
+        TimeSlot slot = booking.getSlot();
+        return lockFor(booking.getCourtId(), slot != null ? slot.getDate() : null);
+    }
+
     // ========== Student 操作 ==========
-    public void addStudent(Student student) {
-        if (findStudentById(student.getStudentId()) == null) {
-            students.add(student);
-            saveStudents();
+    /**
+     * 添加学生；学号为空或已存在时不做任何修改
+     * @return 是否已添加（并发注册同一学号时只有一个调用返回 true）
+     */
+    public boolean addStudent(Student student) {
+        if (student.getStudentId() == null || studentsById.putIfAbsent(student.getStudentId(), student) != null) {
+            return false;
         }
+        students.add(student);
+        student.setChangeListener(studentListener);
+        markDirty(STUDENTS);
+        appendJournal(BookingJournal.OP_ADD_STUDENT,
+                student.getStudentId(), student.getName(), student.getPhone());
+        return true;
     }
 
     public Student findStudentById(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return studentId != null ? studentsById.get(studentId) : null;
     }
 
     public Student[] getStudents() {
         return students.toArray(new Student[0]);
     }
 
+    /**
+     * 学生的只读视图（不复制；写时复制列表，遍历时基于遍历开始时的内容）
+     */
+    public List<Student> getStudentView() {
+        return Collections.unmodifiableList(students);
+    }
+
     public int getStudentCount() {
         return students.size();
     }
 
     // ========== Admin 操作 ==========
     public void addAdmin(Admin admin) {
-        if (findAdminById(admin.getAdminId()) == null) {
+        if (admin.getAdminId() != null && adminsById.putIfAbsent(admin.getAdminId(), admin) == null) {
             admins.add(admin);
-            saveAdmins();
+            admin.setChangeListener(adminListener);
+            markDirty(ADMINS);
+            appendJournal(BookingJournal.OP_ADD_ADMIN,
+                    admin.getAdminId(), admin.getName(), admin.getPhone(), admin.getPassword());
         }
     }
 
     public Admin findAdminById(String adminId) {
-        for (Admin admin : admins) {
-            if (admin.getAdminId().equals(adminId)) {
-                return admin;
-            }
-        }
-        return null;
+        return adminId != null ? adminsById.get(adminId) : null;
     }
 
     public Admin[] getAdmins() {
         return admins.toArray(new Admin[0]);
     }
 
+    /**
+     * 管理员的只读视图（不复制）
+     */
+    public List<Admin> getAdminView() {
+        return Collections.unmodifiableList(admins);
+    }
+
     public int getAdminCount() {
         return admins.size();
     }
 
     // ========== Court 操作 ==========
     public void addCourt(Court court) {
-        if (findCourtById(court.getCourtId()) == null) {
+        if (court.getCourtId() != null && courtsById.putIfAbsent(court.getCourtId(), court) == null) {
             courts.add(court);
-            saveCourts();
+            court.setChangeListener(courtListener);
+            markDirty(COURTS);
+            appendJournal(BookingJournal.OP_ADD_COURT, court.getCourtId(), court.getType().name(),
+                    court.getStatus().name(), String.valueOf(court.getBaseScore()));
         }
     }
 
     public Court findCourtById(String courtId) {
-        for (Court court : courts) {
-            if (court.getCourtId().equals(courtId)) {
-                return court;
-            }
+        return courtId != null ? courtsById.get(courtId) : null;
+    }
+
+    /**
+     * 按版本号更新场地状态（CAS）
+     * @return 是否成功；返回 false 表示读取之后场地已被其他操作修改，调用方应重新读取后重试
+     */
+    public boolean compareAndSetCourtStatus(Court court, CourtStatus expected, long expectedVersion,
+                                            CourtStatus status) {
+        if (!court.compareAndSetStatus(expected, expectedVersion, status)) {
+            return false;
         }
-        return null;
+        appendJournal(BookingJournal.OP_COURT_STATUS, court.getCourtId(), status.name(),
+                String.valueOf(expectedVersion + 1));
+        return true;
     }
 
     public Court[] getCourts() {
         return courts.toArray(new Court[0]);
     }
 
+    /**
+     * 场地的只读视图（不复制；写时复制列表，遍历时基于遍历开始时的内容）
+     */
+    public List<Court> getCourtView() {
+        return Collections.unmodifiableList(courts);
+    }
+
     public int getCourtCount() {
         return courts.size();
     }
 
     // ========== Booking 操作 ==========
     public void addBooking(Booking booking) {
-        if (findBookingById(booking.getBookingId()) == null) {
+        // 预约一旦放入主键索引就可能被其他线程修改，评分和收入汇总按此前记下的初始值计入，
+        // 之后的修改各自增量更新，先后顺序不影响结果
+        BookingState state = booking.getState();
+        int rating = booking.getRating();
+        if (booking.getBookingId() != null && bookingsById.putIfAbsent(booking.getBookingId(), booking) == null) {
             bookings.add(booking);
-            saveBookings();
+            indexBookingByStudent(booking);
+            bookingIndex.add(booking);
+            ratingIndex.update(booking.getCourtId(), 0, rating);
+            revenueCube.add(booking, courtTypeOf(booking), state);
+            booking.setChangeListener(bookingListener);
+            markDirty(BOOKINGS);
+            appendJournal(BookingJournal.OP_CREATE, bookingFields(booking));
         }
     }
 
-    public Booking findBookingById(String bookingId) {
-        for (Booking booking : bookings) {
-            if (booking.getBookingId().equals(bookingId)) {
-                return booking;
+    /**
+     * 按版本号更新预约状态（CAS），成功后同步冲突检测索引
+     * @return 是否成功；返回 false 表示读取之后预约已被其他操作修改，调用方应重新读取后重试
+     */
+    public boolean compareAndSetBookingState(Booking booking, BookingState expected, long expectedVersion,
+                                             BookingState state) {
+        if (!booking.compareAndSetState(expected, expectedVersion, state)) {
+            return false;
+        }
+        bookingIndex.update(booking);
+        revenueCube.move(booking, courtTypeOf(booking), expected, state);
+        appendJournal(BookingJournal.OP_STATE, booking.getBookingId(), state.name(),
+                String.valueOf(expectedVersion + 1));
+        return true;
+    }
+
+    /**
+     * 按版本号更新预约评分（CAS）
+     * @return 是否成功；返回 false 表示读取之后预约已被其他操作修改
+     */
+    public boolean compareAndSetBookingRating(Booking booking, BookingState expected, long expectedVersion,
+                                              int rating) {
+        // CAS 成功说明读取之后版本号未变，此处读到的就是该版本的评分
+        int previous = booking.getRating();
+        if (!booking.compareAndSetRating(expected, expectedVersion, rating)) {
+            return false;
+        }
+        ratingIndex.update(booking.getCourtId(), previous, rating);
+        appendJournal(BookingJournal.OP_RATE, booking.getBookingId(), String.valueOf(rating),
+                String.valueOf(expectedVersion + 1));
+        return true;
+    }
+
+    /**
+     * 检查指定场地在该时段是否已有未取消的预约（基于场地-日期索引）
+     */
+    public boolean hasConflict(String courtId, TimeSlot slot) {
+        return bookingIndex.hasOverlap(courtId, slot);
+    }
+
+    /**
+     * 同 hasConflict(courtId, slot)，并在 examined[0] 中返回逐个比较过的预约数（见 CourtDayIndex.hasOverlap）
+     */
+    public boolean hasConflict(String courtId, TimeSlot slot, int[] examined) {
+        return bookingIndex.hasOverlap(courtId, slot, examined);
+    }
+
+    /**
+     * 一次遍历场地，返回该时段空闲的可用场地（type 为 null 表示不限类型）
+     * 每个场地的冲突检测是对当天占用位图的一次掩码运算
+     */
+    public List<Court> findFreeCourts(TimeSlot slot, CourtType type) {
+        List<Court> freeCourts = new ArrayList<>();
+        for (Court court : courts) {
+            if (court == null) continue;
+            if (type != null && court.getType() != type) {
+                continue;
+            }
+            if (court.getStatus() != CourtStatus.AVAILABLE) {
+                continue;
+            }
+            if (!bookingIndex.hasOverlap(court.getCourtId(), slot)) {
+                freeCourts.add(court);
             }
         }
-        return null;
+        return freeCourts;
+    }
+
+    /**
+     * 营业开始时间（当天秒数），与冲突检测的占用位图一致
+     */
+    public int getOpenSecond() {
+        return bookingIndex.getOpenSecond();
+    }
+
+    /**
+     * 营业结束时间（当天秒数，24:00 为 86400）
+     */
+    public int getCloseSecond() {
+        return bookingIndex.getCloseSecond();
+    }
+
+    /**
+     * 获取指定场地某天的未取消预约，按开始时间排序
+     */
+    public List<Booking> getActiveBookings(String courtId, LocalDate date) {
+        return bookingIndex.getBookings(courtId, date);
+    }
+
+    public Booking findBookingById(String bookingId) {
+        return bookingId != null ? bookingsById.get(bookingId) : null;
+    }
+
+    /**
+     * 获取指定学生的所有预约（按创建顺序），只与该学生自己的预约数有关
+     */
+    public Booking[] findBookingsByStudentId(String studentId) {
+        List<Booking> list = bookingsByStudent.get(studentId);
+        return list != null ? list.toArray(new Booking[0]) : new Booking[0];
+    }
+
+    private void indexBookingByStudent(Booking booking) {
+        if (booking.getStudent() != null && booking.getStudent().getStudentId() != null) {
+            bookingsByStudent.computeIfAbsent(booking.getStudent().getStudentId(),
+                    k -> new CopyOnWriteArrayList<>()).add(booking);
+        }
     }
 
     public Booking[] getBookings() {
-        return bookings.toArray(new Booking[0]);
+        return bookings.snapshot().toArray(new Booking[0]);
+    }
+
+    /**
+     * 当前所有预约的只读快照（O(1)，不复制）
+     * 快照创建后不再变化，之后新增的预约不会出现在其中；遍历期间写入方不受影响
+     */
+    public List<Booking> getBookingSnapshot() {
+        return bookings.snapshot();
+    }
+
+    /**
+     * 指定场地的评分汇总（增量维护，O(1)）
+     */
+    public CourtRatingIndex.Summary getCourtRatingSummary(String courtId) {
+        return ratingIndex.get(courtId);
+    }
+
+    /**
+     * 按日期、场地、场地类型和状态汇总的预约数和费用（增量维护，区间查询 O(log 天数)）
+     */
+    public RevenueCube getRevenueCube() {
+        return revenueCube;
+    }
+
+    /**
+     * 所有有评分的场地的评分汇总（只读视图）
+     */
+    public Map<String, CourtRatingIndex.Summary> getCourtRatingSummaries() {
+        return ratingIndex.getAll();
     }
 
     public int getBookingCount() {
@@ -140,495 +430,811 @@ public class JsonDB {
     }
 
     // ========== 持久化操作 ==========
-    private void saveStudents() {
+
+    /**
+     * 设置快照触发策略
+     */
+    public void setSnapshotPolicy(SnapshotPolicy snapshotPolicy) {
+        this.snapshotPolicy = snapshotPolicy;
+    }
+
+    public SnapshotPolicy getSnapshotPolicy() {
+        return snapshotPolicy;
+    }
+
+    /**
+     * 设置日志持久化模式
+     * SYNC：变更写入日志文件后才返回；ASYNC：立即返回，最多 maxDelayMillis 毫秒后由后台线程批量写入
+     */
+    public void setDurabilityMode(DurabilityMode mode, long maxDelayMillis) {
+        journalWriter.setMode(mode, maxDelayMillis);
+    }
+
+    public DurabilityMode getDurabilityMode() {
+        return journalWriter.getMode();
+    }
+
+    /**
+     * 立即写入所有尚未写入的日志记录（ASYNC 模式下使用）
+     * @throws UncheckedIOException 本次或此前以 ASYNC 模式提交的日志记录写入失败
+     */
+    public void flush() {
+        long start = FLUSH.start();
         try {
-            writeListToFile(STUDENTS_FILE, students, "students");
+            journalWriter.flush();
+            FLUSH.success(start);
         } catch (IOException e) {
-            System.err.println("保存学生数据失败: " + e.getMessage());
-            e.printStackTrace();
+            FLUSH.failed(start, e);
+            throw new UncheckedIOException("写入日志失败: " + e.getMessage(), e);
         }
     }
 
-    private void saveAdmins() {
+    /**
+     * 等待正在进行的后台快照，写完剩余日志记录，停止日志写入线程和快照线程并关闭日志文件；可重复调用
+     * 关闭后不能再修改数据（修改方法抛出 UncheckedIOException），已加载的数据仍可读取
+     * @throws UncheckedIOException 以 ASYNC 模式提交的日志记录写入失败
+     */
+    @Override
+    public void close() {
+        synchronized (snapshotLock) {
+            awaitPendingSnapshot();
+            if (snapshotExecutor != null) {
+                snapshotExecutor.shutdown();
+                snapshotExecutor = null;
+            }
+        }
         try {
-            writeListToFile(ADMINS_FILE, admins, "admins");
+            journalWriter.close();
         } catch (IOException e) {
-            System.err.println("保存管理员数据失败: " + e.getMessage());
-            e.printStackTrace();
+            throw new UncheckedIOException("关闭日志失败: " + e.getMessage(), e);
         }
     }
 
-    private void saveCourts() {
-        try {
-            writeListToFile(COURTS_FILE, courts, "courts");
-        } catch (IOException e) {
-            System.err.println("保存场地数据失败: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * 最近一次 loadFromFile 的耗时（毫秒），包括快照加载和日志重放
+     */
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    /**
+     * 同步保存快照（重写自上次写入后有变化的 JSON 文件）
+     * 与后台快照相同，先轮转日志再复制集合，快照写完后删除日志段；
+     * 保存期间其他线程的变更写入新日志，不会丢失
+     */
+    public void saveToFile() {
+        long start = SAVE.start();
+        synchronized (snapshotLock) {
+            // 等待正在进行的后台快照，避免旧快照覆盖新快照
+            awaitPendingSnapshot();
+            SnapshotData snapshot = prepareSnapshot();
+            if (snapshot != null && snapshot.write()) {
+                deleteJournalSegment();
+                SAVE.success(start);
+            } else {
+                SAVE.failed(start, null);
+            }
         }
     }
 
-    private void saveBookings() {
-        try {
-            writeListToFile(BOOKINGS_FILE, bookings, "bookings");
-        } catch (IOException e) {
-            System.err.println("保存预约数据失败: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * 写入版本号有变化的数据文件（version 为与集合副本同时取得的版本号），全部成功时返回 true
+     */
+    private boolean writeSnapshot(List<Student> studentList, List<Admin> adminList,
+                                  List<Court> courtList, List<Booking> bookingList, long[] version) {
+        if (version[STUDENTS] != savedVersions[STUDENTS]) {
+            try {
+                writeListToFile(studentsFile, studentList, JsonArrayWriter::students);
+                savedVersions[STUDENTS] = version[STUDENTS];
+            } catch (IOException e) {
+                System.err.println("保存学生数据失败: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        if (version[ADMINS] != savedVersions[ADMINS]) {
+            try {
+                writeListToFile(adminsFile, adminList, JsonArrayWriter::admins);
+                savedVersions[ADMINS] = version[ADMINS];
+            } catch (IOException e) {
+                System.err.println("保存管理员数据失败: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        if (version[COURTS] != savedVersions[COURTS]) {
+            try {
+                writeListToFile(courtsFile, courtList, JsonArrayWriter::courts);
+                savedVersions[COURTS] = version[COURTS];
+            } catch (IOException e) {
+                System.err.println("保存场地数据失败: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
         }
+        if (version[BOOKINGS] != savedVersions[BOOKINGS]) {
+            try {
+                writeListToFile(bookingsFile, bookingList, JsonArrayWriter::bookings);
+                savedVersions[BOOKINGS] = version[BOOKINGS];
+            } catch (IOException e) {
+                System.err.println("保存预约数据失败: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return true;
     }
 
-    public void saveToFile() {
-        saveStudents();
-        saveAdmins();
-        saveCourts();
-        saveBookings();
+    private void markDirty(int collection) {
+        versions.incrementAndGet(collection);
     }
 
-    private <T> void writeListToFile(String filePath, List<T> data, String type) throws IOException {
-        File file = new File(filePath);
-        File parentDir = file.getParentFile();
-        if (parentDir != null && !parentDir.exists()) {
-            parentDir.mkdirs();
+    private long[] captureVersions() {
+        long[] version = new long[versions.length()];
+        for (int i = 0; i < version.length; i++) {
+            version[i] = versions.get(i);
         }
-        
-        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
-                new FileOutputStream(file), StandardCharsets.UTF_8))) {
-            writer.println("[");
-            for (int i = 0; i < data.size(); i++) {
-                T item = data.get(i);
-                String json = toJson(item, type);
-                writer.print("  " + json);
-                if (i < data.size() - 1) {
-                    writer.println(",");
+        return version;
+    }
+
+    /**
+     * 在后台生成快照并压缩日志
+     * 当前日志先轮转为日志段，新的记录继续写入新日志，不会被快照阻塞；
+     * 快照写入完成（已落盘）后删除日志段。同一时间只进行一次快照。
+     */
+    private void scheduleSnapshot() {
+        synchronized (snapshotLock) {
+            if (pendingSnapshot != null && !pendingSnapshot.isDone()) {
+                return;
+            }
+            final SnapshotData snapshot = prepareSnapshot();
+            if (snapshot == null) {
+                return;
+            }
+            if (snapshotExecutor == null) {
+                snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "json-db-snapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            pendingSnapshot = snapshotExecutor.submit(() -> {
+                long begin = System.currentTimeMillis();
+                long start = BACKGROUND_SNAPSHOT.start();
+                if (snapshot.write()) {
+                    deleteJournalSegment();
+                    BACKGROUND_SNAPSHOT.success(start);
+                    System.out.println("后台快照完成：" + snapshot.bookings.size() + " 条预约，耗时 "
+                            + (System.currentTimeMillis() - begin) + " ms");
                 } else {
-                    writer.println();
+                    BACKGROUND_SNAPSHOT.failed(start, null);
                 }
-            }
-            writer.println("]");
+            });
         }
     }
 
-    private <T> String toJson(T obj, String type) {
-        if (obj == null) return "null";
-        
-        if (type.equals("students")) {
-            return toJsonStudent((Student) obj);
-        } else if (type.equals("admins")) {
-            return toJsonAdmin((Admin) obj);
-        } else if (type.equals("courts")) {
-            return toJsonCourt((Court) obj);
-        } else if (type.equals("bookings")) {
-            return toJsonBooking((Booking) obj);
+    /**
+     * 轮转日志并复制集合引用（不复制对象），轮转失败时返回 null
+     * 版本号先于集合复制取得：复制期间发生的修改会使版本号再次变化，下一次快照仍会重写对应文件
+     * 调用方须持有 snapshotLock
+     */
+    private SnapshotData prepareSnapshot() {
+        try {
+            journalWriter.rotate(new File(journalSegmentFile));
+        } catch (IOException e) {
+            System.err.println("轮转日志失败: " + e.getMessage());
+            return null;
         }
-        return "{}";
+        long[] versionCopy = captureVersions();
+        return new SnapshotData(new ArrayList<>(students), new ArrayList<>(admins),
+                new ArrayList<>(courts), bookings.snapshot(), versionCopy);
     }
 
-    private String toJsonStudent(Student student) {
-        return String.format("{\n    \"studentId\": \"%s\",\n    \"name\": \"%s\",\n    \"phone\": \"%s\"\n  }",
-                escapeJson(student.getStudentId()),
-                escapeJson(student.getName()),
-                escapeJson(student.getPhone()));
+    /**
+     * 某一时刻的集合副本及其版本号，快照线程只读这些副本
+     */
+    private final class SnapshotData {
+        private final List<Student> students;
+        private final List<Admin> admins;
+        private final List<Court> courts;
+        private final List<Booking> bookings;
+        private final long[] versions;
+
+        SnapshotData(List<Student> students, List<Admin> admins, List<Court> courts,
+                     List<Booking> bookings, long[] versions) {
+            this.students = students;
+            this.admins = admins;
+            this.courts = courts;
+            this.bookings = bookings;
+            this.versions = versions;
+        }
+
+        boolean write() {
+            return writeSnapshot(students, admins, courts, bookings, versions);
+        }
+    }
+
+    /**
+     * 调用方须持有 snapshotLock
+     */
+    private void awaitPendingSnapshot() {
+        if (pendingSnapshot == null) {
+            return;
+        }
+        try {
+            pendingSnapshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("后台快照失败: " + e.getCause());
+        }
+        pendingSnapshot = null;
     }
 
-    private String toJsonAdmin(Admin admin) {
-        return String.format("{\n    \"adminId\": \"%s\",\n    \"name\": \"%s\",\n    \"phone\": \"%s\",\n    \"password\": \"%s\"\n  }",
-                escapeJson(admin.getAdminId()),
-                escapeJson(admin.getName()),
-                escapeJson(admin.getPhone()),
-                escapeJson(admin.getPassword()));
+    private void deleteJournalSegment() {
+        File segment = new File(journalSegmentFile);
+        if (segment.exists() && !segment.delete()) {
+            System.err.println("删除日志段失败: " + segment);
+        }
     }
 
-    private String toJsonCourt(Court court) {
-        return String.format("{\n    \"courtId\": \"%s\",\n    \"type\": \"%s\",\n    \"status\": \"%s\",\n    \"baseScore\": %.2f\n  }",
-                escapeJson(court.getCourtId()),
-                court.getType().name(),
-                court.getStatus().name(),
-                court.getBaseScore());
+    // ========== 日志操作 ==========
+    /**
+     * 提交一条日志记录；SYNC 模式下记录未能落盘时抛出 UncheckedIOException，调用方不能认为修改已保存
+     */
+    private void appendJournal(String op, String... fields) {
+        byte[] record = BookingJournal.encode(op, fields);
+        try {
+            journalWriter.submit(record);
+            Metrics.io().journalRecordWritten(record.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入日志失败，修改未保存到磁盘: " + e.getMessage(), e);
+        }
+        if (snapshotPolicy.shouldSnapshot(journal.getRecordCount(), journal.getByteCount())) {
+            scheduleSnapshot();
+        }
     }
 
-    private String toJsonBooking(Booking booking) {
+    private String[] bookingFields(Booking booking) {
         Student student = booking.getStudent();
         TimeSlot slot = booking.getSlot();
-        String studentJson = student != null ? toJsonStudent(student) : "null";
-        String slotJson = slot != null ? toJsonTimeSlot(slot) : "null";
-        String createdAtStr = booking.getCreatedAt() != null ? 
-                "\"" + booking.getCreatedAt().toString() + "\"" : "null";
-        
-        return String.format("{\n    \"bookingId\": \"%s\",\n    \"student\": %s,\n    \"courtId\": \"%s\",\n    \"slot\": %s,\n    \"state\": \"%s\",\n    \"fee\": %.2f,\n    \"rating\": %d,\n    \"createdAt\": %s\n  }",
-                escapeJson(booking.getBookingId()),
-                studentJson,
-                escapeJson(booking.getCourtId()),
-                slotJson,
+        return new String[]{
+                booking.getBookingId(),
+                student != null ? student.getStudentId() : null,
+                student != null ? student.getName() : null,
+                student != null ? student.getPhone() : null,
+                booking.getCourtId(),
+                slot != null ? slot.getDate().toString() : null,
+                slot != null ? slot.getStart().toString() : null,
+                slot != null ? slot.getEnd().toString() : null,
                 booking.getState().name(),
-                booking.getFee(),
-                booking.getRating(),
-                createdAtStr);
+                String.valueOf(booking.getFee()),
+                String.valueOf(booking.getRating()),
+                booking.getCreatedAt() != null ? booking.getCreatedAt().toString() : null
+        };
+    }
+
+    /**
+     * 在已加载的快照之上重放日志（先重放未完成快照留下的日志段），返回重放的记录数
+     * 所有记录都是幂等的，重放已包含在快照中的记录不会产生副作用
+     */
+    private int replayJournal() {
+        int replayed = 0;
+        File segment = new File(journalSegmentFile);
+        PersistenceEvent event = FlightEvents.persistence("重放日志");
+        try {
+            replayed += applyRecords(BookingJournal.read(segment));
+            replayed += applyRecords(journal.readAll());
+        } catch (IOException e) {
+            System.err.println("读取日志失败: " + e.getMessage());
+        }
+        if (event != null) {
+            event.finish(journalFile, replayed, segment.length() + journal.getFile().length());
+        }
+        return replayed;
+    }
+
+    private int applyRecords(List<String[]> records) {
+        for (String[] record : records) {
+            try {
+                applyRecord(record);
+            } catch (Exception e) {
+                System.err.println("重放日志记录失败: " + String.join(" ", record) + " - " + e.getMessage());
+            }
+        }
+        return records.size();
     }
 
-    private String toJsonTimeSlot(TimeSlot slot) {
-        return String.format("{\n      \"date\": \"%s\",\n      \"start\": \"%s\",\n      \"end\": \"%s\"\n    }",
-                slot.getDate().toString(),
-                slot.getStart().toString(),
-                slot.getEnd().toString());
+    private void applyRecord(String[] r) {
+        switch (r[0]) {
+            case BookingJournal.OP_CREATE: {
+                if (findBookingById(r[1]) != null) {
+                    return; // 快照中已存在
+                }
+                Student student = null;
+                if (r[2] != null) {
+                    student = findStudentById(r[2]);
+                    if (student == null) {
+                        student = new Student(r[2], r[3], r[4]);
+                    }
+                }
+                TimeSlot slot = r[6] == null ? null : new TimeSlot(
+                        LocalDate.parse(r[6]), LocalTime.parse(r[7]), LocalTime.parse(r[8]));
+                Booking booking = new Booking(r[1], student, r[5], slot,
+                        BookingState.valueOf(r[9]), Double.parseDouble(r[10]),
+                        loadedRating(r[1], Integer.parseInt(r[11])), r[12] != null ? LocalDateTime.parse(r[12]) : null);
+                bookings.add(booking);
+                bookingsById.put(booking.getBookingId(), booking);
+                indexBookingByStudent(booking);
+                booking.setChangeListener(bookingListener);
+                markDirty(BOOKINGS);
+                break;
+            }
+            case BookingJournal.OP_STATE: {
+                Booking booking = findBookingById(r[1]);
+                long version = recordVersion(r);
+                if (booking != null && isNewer(version, booking.getVersion())) {
+                    booking.setState(BookingState.valueOf(r[2]));
+                    if (version != NO_VERSION) {
+                        booking.setVersion(version);
+                    }
+                }
+                break;
+            }
+            case BookingJournal.OP_RATE: {
+                Booking booking = findBookingById(r[1]);
+                long version = recordVersion(r);
+                if (booking != null && isNewer(version, booking.getVersion())) {
+                    booking.setRating(Integer.parseInt(r[2]));
+                    if (version != NO_VERSION) {
+                        booking.setVersion(version);
+                    }
+                }
+                break;
+            }
+            case BookingJournal.OP_COURT_STATUS: {
+                Court court = findCourtById(r[1]);
+                long version = recordVersion(r);
+                if (court != null && isNewer(version, court.getVersion())) {
+                    court.setStatus(CourtStatus.valueOf(r[2]));
+                    if (version != NO_VERSION) {
+                        court.setVersion(version);
+                    }
+                }
+                break;
+            }
+            case BookingJournal.OP_ADD_STUDENT:
+                if (findStudentById(r[1]) == null) {
+                    Student student = new Student(r[1], r[2], r[3]);
+                    students.add(student);
+                    studentsById.put(student.getStudentId(), student);
+                    student.setChangeListener(studentListener);
+                    markDirty(STUDENTS);
+                }
+                break;
+            case BookingJournal.OP_ADD_ADMIN:
+                if (findAdminById(r[1]) == null) {
+                    Admin admin = new Admin(r[1], r[2], r[3], r[4]);
+                    admins.add(admin);
+                    adminsById.put(admin.getAdminId(), admin);
+                    admin.setChangeListener(adminListener);
+                    markDirty(ADMINS);
+                }
+                break;
+            case BookingJournal.OP_ADD_COURT:
+                if (findCourtById(r[1]) == null) {
+                    Court court = new Court(r[1], CourtType.valueOf(r[2]),
+                            CourtStatus.valueOf(r[3]), Double.parseDouble(r[4]));
+                    courts.add(court);
+                    courtsById.put(court.getCourtId(), court);
+                    court.setChangeListener(courtListener);
+                    markDirty(COURTS);
+                }
+                break;
+            default:
+                System.err.println("未知的日志记录类型: " + r[0]);
+        }
     }
 
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
+    /**
+     * 在输出流上创建对应实体的 JSON 数组写入器
+     */
+    private interface ArrayWriterFactory<T> {
+        JsonArrayWriter<T> open(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 状态变更记录中修改后的版本号
+     * 同一对象的两次修改写入日志的先后可能与 CAS 的先后不同，重放时只应用比当前版本新的记录；
+     * 旧格式的记录没有版本号，按顺序应用
+     */
+    private static long recordVersion(String[] r) {
+        return r.length > 3 && r[3] != null ? Long.parseLong(r[3]) : NO_VERSION;
+    }
+
+    private static boolean isNewer(long recordVersion, long currentVersion) {
+        return recordVersion == NO_VERSION || recordVersion > currentVersion;
+    }
+
+    private <T> void writeListToFile(String filePath, List<T> data, ArrayWriterFactory<T> factory) throws IOException {
+        // 先写临时文件并落盘，再替换目标文件，保证快照要么是旧的完整版本，要么是新的完整版本
+        long[] bytes = new long[1];
+        PersistenceEvent event = FlightEvents.persistence("写入快照");
+        try {
+            AtomicFiles.write(new File(filePath), out -> {
+                JsonArrayWriter<T> writer = factory.open(out);
+                for (int i = 0; i < data.size(); i++) {
+                    writer.write(data.get(i));
+                }
+                writer.finish();
+                bytes[0] = writer.getBytesWritten();
+            });
+        } catch (IOException e) {
+            Metrics.io().snapshotWriteFailed();
+            throw e;
+        } finally {
+            if (event != null) {
+                event.finish(filePath, data.size(), bytes[0]);
+            }
+        }
+        Metrics.io().snapshotFileWritten(bytes[0]);
     }
 
     public static JsonDB loadFromFile() {
-        JsonDB db = new JsonDB();
+        return loadFromFile(DATA_DIR);
+    }
+
+    /**
+     * 从指定数据目录加载
+     */
+    public static JsonDB loadFromFile(String dataDir) {
+        long begin = System.currentTimeMillis();
+        long start = LOAD.start();
+        JsonDB db = new JsonDB(dataDir);
+        
+        // 上次写快照时中断留下的临时文件不完整，目标文件仍是上一版完整快照
+        AtomicFiles.deleteTempFiles(new File(dataDir));
         
+        // 加载阶段只有当前线程访问，学生、管理员、场地先用普通列表读取和重放，完成后再换成写时复制列表
         // 加载学生数据
-        db.students = db.readStudentsFromFile(STUDENTS_FILE);
+        db.students = db.readStudentsFromFile(db.studentsFile);
         
         // 加载管理员数据
-        db.admins = db.readAdminsFromFile(ADMINS_FILE);
+        db.admins = db.readAdminsFromFile(db.adminsFile);
         
         // 加载场地数据
-        db.courts = db.readCourtsFromFile(COURTS_FILE);
+        db.courts = db.readCourtsFromFile(db.courtsFile);
         
         // 加载预约数据
-        db.bookings = db.readBookingsFromFile(BOOKINGS_FILE);
+        db.bookings = new SnapshotList<>();
+        db.bookings.addAll(db.readBookingsFromFile(db.bookingsFile));
         
-        return db;
-    }
-
-    private List<Student> readStudentsFromFile(String filePath) {
-        List<Student> result = new ArrayList<>();
-        File file = new File(filePath);
-        if (!file.exists()) {
-            return result;
-        }
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
-            String content = readAll(reader);
-            if (content == null || content.trim().isEmpty()) {
-                return result;
-            }
-            
-            // 简单的JSON解析 - 查找所有对象
-            int start = content.indexOf('[');
-            if (start == -1) return result;
-            
-            int pos = start + 1;
-            while (pos < content.length()) {
-                int objStart = content.indexOf('{', pos);
-                if (objStart == -1) break;
-                
-                int objEnd = findMatchingBrace(content, objStart);
-                if (objEnd == -1) break;
-                
-                String objJson = content.substring(objStart, objEnd + 1);
-                Student student = parseStudent(objJson);
-                if (student != null) {
-                    result.add(student);
-                }
-                
-                pos = objEnd + 1;
+        // 尚不存在的文件在下一次快照时写出
+        String[] files = {db.studentsFile, db.adminsFile, db.courtsFile, db.bookingsFile};
+        for (int i = 0; i < files.length; i++) {
+            if (!new File(files[i]).exists()) {
+                db.markDirty(i);
             }
-        } catch (IOException e) {
-            System.err.println("读取学生数据失败: " + e.getMessage());
         }
         
-        return result;
-    }
-
-    private List<Admin> readAdminsFromFile(String filePath) {
-        List<Admin> result = new ArrayList<>();
-        File file = new File(filePath);
-        if (!file.exists()) {
-            return result;
+        db.rebuildIdIndexes();
+        long snapshotMillis = System.currentTimeMillis() - begin;
+        long recordsLoaded = db.students.size() + db.admins.size() + db.courts.size() + db.bookings.size();
+        long bytesLoaded = new File(db.journalFile).length() + new File(db.journalSegmentFile).length();
+        for (String file : files) {
+            bytesLoaded += new File(file).length();
         }
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
-            String content = readAll(reader);
-            if (content == null || content.trim().isEmpty()) {
-                return result;
-            }
-            
-            // 简单的JSON解析 - 查找所有对象
-            int start = content.indexOf('[');
-            if (start == -1) return result;
-            
-            int pos = start + 1;
-            while (pos < content.length()) {
-                int objStart = content.indexOf('{', pos);
-                if (objStart == -1) break;
-                
-                int objEnd = findMatchingBrace(content, objStart);
-                if (objEnd == -1) break;
-                
-                String objJson = content.substring(objStart, objEnd + 1);
-                Admin admin = parseAdmin(objJson);
-                if (admin != null) {
-                    result.add(admin);
-                }
-                
-                pos = objEnd + 1;
-            }
-        } catch (IOException e) {
-            System.err.println("读取管理员数据失败: " + e.getMessage());
+        // 在快照之上重放日志
+        int replayed = db.replayJournal();
+        Metrics.io().loaded(bytesLoaded, recordsLoaded + replayed);
+        db.rebuildBookingIndexes();
+        db.students = new CopyOnWriteArrayList<>(db.students);
+        db.admins = new CopyOnWriteArrayList<>(db.admins);
+        db.courts = new CopyOnWriteArrayList<>(db.courts);
+        
+        // 上次后台快照未完成，立即补一次完整快照，使日志段不再累积
+        if (new File(db.journalSegmentFile).exists()) {
+            db.saveToFile();
         }
         
-        return result;
+        db.lastLoadMillis = System.currentTimeMillis() - begin;
+        LOAD.success(start);
+        System.out.println("数据加载完成：" + db.bookings.size() + " 条预约，快照加载 " + snapshotMillis
+                + " ms，重放日志 " + replayed + " 条，总耗时 " + db.lastLoadMillis + " ms");
+        return db;
     }
 
-    private List<Court> readCourtsFromFile(String filePath) {
-        List<Court> result = new ArrayList<>();
-        File file = new File(filePath);
-        if (!file.exists()) {
-            return result;
+    /**
+     * 重建主键索引和学号索引（同一主键出现多次时保留第一条，与原先顺序查找的结果一致）
+     */
+    private void rebuildIdIndexes() {
+        studentsById = new ConcurrentHashMap<>(students.size() * 2);
+        for (Student student : students) {
+            if (student.getStudentId() != null) {
+                studentsById.putIfAbsent(student.getStudentId(), student);
+            }
+            student.setChangeListener(studentListener);
         }
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
-            String content = readAll(reader);
-            if (content == null || content.trim().isEmpty()) {
-                return result;
+        adminsById = new ConcurrentHashMap<>(admins.size() * 2);
+        for (Admin admin : admins) {
+            if (admin.getAdminId() != null) {
+                adminsById.putIfAbsent(admin.getAdminId(), admin);
             }
-            
-            // 简单的JSON解析 - 查找所有对象
-            int start = content.indexOf('[');
-            if (start == -1) return result;
-            
-            int pos = start + 1;
-            while (pos < content.length()) {
-                int objStart = content.indexOf('{', pos);
-                if (objStart == -1) break;
-                
-                int objEnd = findMatchingBrace(content, objStart);
-                if (objEnd == -1) break;
-                
-                String objJson = content.substring(objStart, objEnd + 1);
-                Court court = parseCourt(objJson);
-                if (court != null) {
-                    result.add(court);
-                }
-                
-                pos = objEnd + 1;
+            admin.setChangeListener(adminListener);
+        }
+        courtsById = new ConcurrentHashMap<>(courts.size() * 2);
+        for (Court court : courts) {
+            if (court.getCourtId() != null) {
+                courtsById.putIfAbsent(court.getCourtId(), court);
             }
-        } catch (IOException e) {
-            System.err.println("读取场地数据失败: " + e.getMessage());
+            court.setChangeListener(courtListener);
+        }
+        bookingsById = new ConcurrentHashMap<>(bookings.size() * 2);
+        bookingsByStudent = new ConcurrentHashMap<>();
+        for (Booking booking : bookings.snapshot()) {
+            if (booking.getBookingId() != null) {
+                bookingsById.putIfAbsent(booking.getBookingId(), booking);
+            }
+            indexBookingByStudent(booking);
+            booking.setChangeListener(bookingListener);
         }
-        
-        return result;
+    }
+
+    private void rebuildBookingIndexes() {
+        bookingIndex.clear();
+        ratingIndex.clear();
+        revenueCube.clear();
+        for (Booking booking : bookings.snapshot()) {
+            bookingIndex.add(booking);
+            ratingIndex.add(booking);
+            revenueCube.add(booking, courtTypeOf(booking), booking.getState());
+        }
+    }
+
+    private CourtType courtTypeOf(Booking booking) {
+        Court court = findCourtById(booking.getCourtId());
+        return court != null ? court.getType() : null;
+    }
+
+    // 读取时直接复用的字段名和枚举名常量
+    private static final String[] KNOWN_JSON_STRINGS = {
+            "studentId", "name", "phone", "adminId", "password",
+            "courtId", "type", "status", "baseScore", "version",
+            "bookingId", "student", "slot", "state", "fee", "rating", "createdAt",
+            "date", "start", "end",
+            "SINGLES", "DOUBLES", "AVAILABLE", "MAINTENANCE",
+            "PENDING", "COMPLETED", "CANCELLED"
+    };
+
+    /**
+     * 从流中读取一个实体对象
+     */
+    private interface RecordReader<T> {
+        T read(JsonStreamReader reader) throws IOException;
+    }
+
+    private List<Student> readStudentsFromFile(String filePath) {
+        return readListFromFile(filePath, "学生", this::readStudent);
+    }
+
+    private List<Admin> readAdminsFromFile(String filePath) {
+        return readListFromFile(filePath, "管理员", this::readAdmin);
+    }
+
+    private List<Court> readCourtsFromFile(String filePath) {
+        return readListFromFile(filePath, "场地", this::readCourt);
     }
 
     private List<Booking> readBookingsFromFile(String filePath) {
-        List<Booking> result = new ArrayList<>();
+        return readListFromFile(filePath, "预约", this::readBooking);
+    }
+
+    /**
+     * 一次顺序读取整个 JSON 数组文件，逐个对象直接构造实体
+     * 单个对象内容无效时跳过该对象；文件格式损坏时保留已读取的部分
+     */
+    private <T> List<T> readListFromFile(String filePath, String label, RecordReader<T> recordReader) {
+        List<T> result = new ArrayList<>();
         File file = new File(filePath);
         if (!file.exists()) {
             return result;
         }
         
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                new FileInputStream(file), StandardCharsets.UTF_8))) {
-            String content = readAll(reader);
-            if (content == null || content.trim().isEmpty()) {
+        PersistenceEvent event = FlightEvents.persistence("加载");
+        try (JsonStreamReader reader = new JsonStreamReader(new InputStreamReader(
+                new FileInputStream(file), StandardCharsets.UTF_8), KNOWN_JSON_STRINGS)) {
+            if (!reader.beginArrayIfPresent()) {
                 return result;
             }
-            
-            // 简单的JSON解析 - 查找所有对象
-            int start = content.indexOf('[');
-            if (start == -1) return result;
-            
-            int pos = start + 1;
-            while (pos < content.length()) {
-                int objStart = content.indexOf('{', pos);
-                if (objStart == -1) break;
-                
-                int objEnd = findMatchingBrace(content, objStart);
-                if (objEnd == -1) break;
-                
-                String objJson = content.substring(objStart, objEnd + 1);
-                Booking booking = parseBooking(objJson);
-                if (booking != null) {
-                    result.add(booking);
+            while (reader.hasNext()) {
+                T item = recordReader.read(reader);
+                if (item != null) {
+                    result.add(item);
                 }
-                
-                pos = objEnd + 1;
             }
-        } catch (IOException e) {
-            System.err.println("读取预约数据失败: " + e.getMessage());
+            reader.endArray();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("读取" + label + "数据失败: " + e.getMessage());
+        }
+        if (event != null) {
+            event.finish(filePath, result.size(), file.length());
         }
         
         return result;
     }
 
-    private String readAll(BufferedReader reader) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            sb.append(line);
+    private Student readStudent(JsonStreamReader reader) throws IOException {
+        if (reader.nextNullIfPresent()) {
+            return null;
         }
-        return sb.toString();
-    }
-
-    private int findMatchingBrace(String str, int start) {
-        int count = 0;
-        for (int i = start; i < str.length(); i++) {
-            if (str.charAt(i) == '{') count++;
-            if (str.charAt(i) == '}') {
-                count--;
-                if (count == 0) return i;
+        String studentId = null;
+        String name = null;
+        String phone = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "studentId": studentId = reader.nextString(); break;
+                case "name": name = reader.nextString(); break;
+                case "phone": phone = reader.nextString(); break;
+                default: reader.skipValue();
             }
         }
-        return -1;
+        reader.endObject();
+        return new Student(studentId, name, phone);
     }
 
-    private Student parseStudent(String json) {
-        try {
-            String studentId = extractString(json, "studentId");
-            String name = extractString(json, "name");
-            String phone = extractString(json, "phone");
-            return new Student(studentId, name, phone);
-        } catch (Exception e) {
-            System.err.println("解析学生数据失败: " + e.getMessage());
+    private Admin readAdmin(JsonStreamReader reader) throws IOException {
+        if (reader.nextNullIfPresent()) {
             return null;
         }
+        String adminId = null;
+        String name = null;
+        String phone = null;
+        String password = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "adminId": adminId = reader.nextString(); break;
+                case "name": name = reader.nextString(); break;
+                case "phone": phone = reader.nextString(); break;
+                case "password": password = reader.nextString(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Admin(adminId, name, phone, password);
     }
 
-    private Admin parseAdmin(String json) {
-        try {
-            String adminId = extractString(json, "adminId");
-            String name = extractString(json, "name");
-            String phone = extractString(json, "phone");
-            String password = extractString(json, "password");
-            return new Admin(adminId, name, phone, password);
-        } catch (Exception e) {
-            System.err.println("解析管理员数据失败: " + e.getMessage());
+    private Court readCourt(JsonStreamReader reader) throws IOException {
+        if (reader.nextNullIfPresent()) {
             return null;
         }
-    }
-
-    private Court parseCourt(String json) {
+        String courtId = null;
+        String typeStr = null;
+        String statusStr = null;
+        double baseScore = 0.0;
+        long version = 0;
+        String error = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            try {
+                switch (name) {
+                    case "courtId": courtId = reader.nextString(); break;
+                    case "type": typeStr = reader.nextKnownString(); break;
+                    case "status": statusStr = reader.nextKnownString(); break;
+                    case "baseScore": baseScore = reader.nextDouble(); break;
+                    case "version": version = reader.nextLong(); break;
+                    default: reader.skipValue();
+                }
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+            }
+        }
+        reader.endObject();
+        
         try {
-            String courtId = extractString(json, "courtId");
-            String typeStr = extractString(json, "type");
-            String statusStr = extractString(json, "status");
-            double baseScore = extractDouble(json, "baseScore");
-            
-            CourtType type = CourtType.valueOf(typeStr);
-            CourtStatus status = CourtStatus.valueOf(statusStr);
-            return new Court(courtId, type, status, baseScore);
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            Court court = new Court(courtId, CourtType.valueOf(typeStr), CourtStatus.valueOf(statusStr), baseScore);
+            court.setVersion(version);
+            return court;
         } catch (Exception e) {
             System.err.println("解析场地数据失败: " + e.getMessage());
             return null;
         }
     }
 
-    private Booking parseBooking(String json) {
-        try {
-            String bookingId = extractString(json, "bookingId");
-            String courtId = extractString(json, "courtId");
-            String stateStr = extractString(json, "state");
-            double fee = extractDouble(json, "fee");
-            int rating = extractInt(json, "rating");
-            
-            // 解析student
-            int studentStart = json.indexOf("\"student\":");
-            Student student = null;
-            if (studentStart != -1) {
-                int objStart = json.indexOf('{', studentStart);
-                if (objStart != -1) {
-                    int objEnd = findMatchingBrace(json, objStart);
-                    if (objEnd != -1) {
-                        String studentJson = json.substring(objStart, objEnd + 1);
-                        student = parseStudent(studentJson);
-                    }
-                }
-            }
-            
-            // 解析slot
-            int slotStart = json.indexOf("\"slot\":");
-            TimeSlot slot = null;
-            if (slotStart != -1) {
-                int objStart = json.indexOf('{', slotStart);
-                if (objStart != -1) {
-                    int objEnd = findMatchingBrace(json, objStart);
-                    if (objEnd != -1) {
-                        String slotJson = json.substring(objStart, objEnd + 1);
-                        slot = parseTimeSlot(slotJson);
-                    }
+    private Booking readBooking(JsonStreamReader reader) throws IOException {
+        if (reader.nextNullIfPresent()) {
+            return null;
+        }
+        String bookingId = null;
+        Student student = null;
+        String courtId = null;
+        TimeSlot slot = null;
+        String stateStr = null;
+        double fee = 0.0;
+        int rating = 0;
+        LocalDateTime createdAt = null;
+        long version = 0;
+        String error = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            try {
+                switch (name) {
+                    case "bookingId": bookingId = reader.nextString(); break;
+                    case "student": student = readStudent(reader); break;
+                    case "courtId": courtId = reader.nextString(); break;
+                    case "slot": slot = readTimeSlot(reader); break;
+                    case "state": stateStr = reader.nextKnownString(); break;
+                    case "fee": fee = reader.nextDouble(); break;
+                    case "rating": rating = reader.nextInt(); break;
+                    case "createdAt": createdAt = reader.nextLocalDateTime(); break;
+                    case "version": version = reader.nextLong(); break;
+                    default: reader.skipValue();
                 }
+            } catch (RuntimeException e) {
+                // 值已完整读取，只是内容无效：记录错误，继续读完该对象
+                error = e.getMessage();
             }
-            
-            // 解析createdAt
-            LocalDateTime createdAt = null;
-            String createdAtStr = extractString(json, "createdAt");
-            if (createdAtStr != null && !createdAtStr.isEmpty()) {
-                createdAt = LocalDateTime.parse(createdAtStr);
+        }
+        reader.endObject();
+        
+        try {
+            if (error != null) {
+                throw new IllegalArgumentException(error);
             }
-            
             BookingState state = BookingState.valueOf(stateStr);
-            return new Booking(bookingId, student, courtId, slot, state, fee, rating, createdAt);
+            Booking booking = new Booking(bookingId, student, courtId, slot, state, fee,
+                    loadedRating(bookingId, rating), createdAt);
+            booking.setVersion(version);
+            return booking;
         } catch (Exception e) {
             System.err.println("解析预约数据失败: " + e.getMessage());
-            e.printStackTrace();
             return null;
         }
     }
 
-    private TimeSlot parseTimeSlot(String json) {
-        try {
-            String dateStr = extractString(json, "date");
-            String startStr = extractString(json, "start");
-            String endStr = extractString(json, "end");
-            
-            LocalDate date = LocalDate.parse(dateStr);
-            LocalTime start = LocalTime.parse(startStr);
-            LocalTime end = LocalTime.parse(endStr);
-            return new TimeSlot(date, start, end);
-        } catch (Exception e) {
-            System.err.println("解析时段数据失败: " + e.getMessage());
-            return null;
-        }
-    }
-
-    private String extractString(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]*)\"";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return unescapeJson(m.group(1));
+    /**
+     * 数据文件或日志中的评分超出 0-5 时按未评分处理（其余字段照常加载）
+     */
+    private static int loadedRating(String bookingId, int rating) {
+        if (rating < 0 || rating > 5) {
+            System.err.println("预约 " + bookingId + " 的评分无效（" + rating + "），按未评分处理");
+            return 0;
         }
-        return null;
+        return rating;
     }
 
-    private double extractDouble(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*([0-9]+\\.?[0-9]*)";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return Double.parseDouble(m.group(1));
+    private TimeSlot readTimeSlot(JsonStreamReader reader) throws IOException {
+        if (reader.nextNullIfPresent()) {
+            return null;
         }
-        return 0.0;
-    }
-
-    private int extractInt(String json, String key) {
-        String pattern = "\"" + key + "\"\\s*:\\s*([0-9]+)";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-        java.util.regex.Matcher m = p.matcher(json);
-        if (m.find()) {
-            return Integer.parseInt(m.group(1));
+        LocalDate date = null;
+        LocalTime start = null;
+        LocalTime end = null;
+        boolean valid = true;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            try {
+                switch (name) {
+                    case "date": date = reader.nextLocalDate(); break;
+                    case "start": start = reader.nextLocalTime(); break;
+                    case "end": end = reader.nextLocalTime(); break;
+                    default: reader.skipValue();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("解析时段数据失败: " + e.getMessage());
+                valid = false;
+            }
         }
-        return 0;
-    }
-
-    private String unescapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\\"", "\"")
-                .replace("\\\\", "\\")
-                .replace("\\n", "\n")
-                .replace("\\r", "\r")
-                .replace("\\t", "\t");
+        reader.endObject();
+        return valid ? new TimeSlot(date, start, end) : null;
     }
 
     /**
@@ -0,0 +1,543 @@
+package com.badminton.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * 流式 JSON 读取器（手写词法分析，不依赖外部库）
+ * 一次顺序读取整个文件，直接把值交给调用方构造实体对象：
+ * 不使用正则表达式，不截取子串；字段名和枚举值等已知字符串直接返回常量，不产生新对象。
+ * 字符串中的转义字符（包括 \\uXXXX）以及字符串内的括号都能正确处理。
+ */
+public class JsonStreamReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long consumed; // 已处理的字符数，用于错误定位
+
+    // 当前字符串值的暂存区（复用）
+    private char[] text = new char[64];
+    private int textLength;
+
+    // 已知字符串常量（字段名、枚举名），查找时先比较长度
+    private final String[] known;
+
+    // 每层容器是否已读取过元素（决定下一个元素前是否需要逗号）
+    private boolean[] hasElement = new boolean[16];
+    private int depth;
+
+    /**
+     * @param in 输入（内部自带缓冲，无需再包装 BufferedReader）
+     * @param knownStrings 会频繁出现的字段名和枚举值，读取时直接返回这些常量
+     */
+    public JsonStreamReader(Reader in, String... knownStrings) {
+        this.in = in;
+        this.known = knownStrings.clone();
+    }
+
+    // ========== 结构 ==========
+
+    /**
+     * 读取数组开始标记；文件为空（只有空白）时返回 false
+     */
+    public boolean beginArrayIfPresent() throws IOException {
+        if (peekNonWhitespace() == -1) {
+            return false;
+        }
+        beginArray();
+        return true;
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+        depth--;
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+        depth--;
+    }
+
+    /**
+     * 当前数组或对象中是否还有下一个元素（自动跳过元素间的逗号）
+     */
+    public boolean hasNext() throws IOException {
+        int c = peekNonWhitespace();
+        if (c == ']' || c == '}') {
+            return false;
+        }
+        if (hasElement[depth]) {
+            if (c != ',') {
+                throw syntaxError("应为 ',' 但读到 " + describe(c));
+            }
+            pos++;
+            consumed++;
+        } else {
+            hasElement[depth] = true;
+        }
+        return true;
+    }
+
+    /**
+     * 读取字段名及其后的冒号
+     */
+    public String nextName() throws IOException {
+        readStringToken();
+        expect(':');
+        return internText();
+    }
+
+    // ========== 值 ==========
+
+    /**
+     * 下一个值是否为 null；是则消费掉并返回 true
+     */
+    public boolean nextNullIfPresent() throws IOException {
+        if (peekNonWhitespace() != 'n') {
+            return false;
+        }
+        expectLiteral("null");
+        return true;
+    }
+
+    /**
+     * 读取字符串值（允许 null）
+     */
+    public String nextString() throws IOException {
+        if (nextNullIfPresent()) {
+            return null;
+        }
+        readStringToken();
+        return new String(text, 0, textLength);
+    }
+
+    /**
+     * 读取字符串值，若等于已知常量则直接返回常量（用于枚举名等重复值）
+     */
+    public String nextKnownString() throws IOException {
+        if (nextNullIfPresent()) {
+            return null;
+        }
+        readStringToken();
+        return internText();
+    }
+
+    public double nextDouble() throws IOException {
+        if (nextNullIfPresent()) {
+            return 0.0;
+        }
+        readNumberToken();
+        return parseDouble();
+    }
+
+    public long nextLong() throws IOException {
+        if (nextNullIfPresent()) {
+            return 0L;
+        }
+        readNumberToken();
+        int start = 0;
+        boolean negative = false;
+        if (textLength > 0 && (text[0] == '-' || text[0] == '+')) {
+            negative = text[0] == '-';
+            start = 1;
+        }
+        long value = 0;
+        for (int i = start; i < textLength; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return (long) parseDouble(); // 带小数点或指数的写法
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public int nextInt() throws IOException {
+        if (nextNullIfPresent()) {
+            return 0;
+        }
+        readNumberToken();
+        int start = 0;
+        boolean negative = false;
+        if (textLength > 0 && (text[0] == '-' || text[0] == '+')) {
+            negative = text[0] == '-';
+            start = 1;
+        }
+        long value = 0;
+        for (int i = start; i < textLength; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9' || value > Integer.MAX_VALUE) {
+                return (int) parseDouble(); // 带小数点或指数的写法
+            }
+            value = value * 10 + (c - '0');
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * 读取 yyyy-MM-dd 格式的日期（允许 null）
+     */
+    public LocalDate nextLocalDate() throws IOException {
+        if (nextNullIfPresent()) {
+            return null;
+        }
+        readStringToken();
+        if (textLength == 10 && text[4] == '-' && text[7] == '-') {
+            return LocalDate.of(digits(0, 4), digits(5, 2), digits(8, 2));
+        }
+        return LocalDate.parse(new String(text, 0, textLength));
+    }
+
+    /**
+     * 读取 HH:mm[:ss[.nnnnnnnnn]] 格式的时间（允许 null）
+     */
+    public LocalTime nextLocalTime() throws IOException {
+        if (nextNullIfPresent()) {
+            return null;
+        }
+        readStringToken();
+        LocalTime time = parseTime(0);
+        return time != null ? time : LocalTime.parse(new String(text, 0, textLength));
+    }
+
+    /**
+     * 读取 yyyy-MM-ddTHH:mm[:ss[.nnnnnnnnn]] 格式的日期时间（允许 null）
+     */
+    public LocalDateTime nextLocalDateTime() throws IOException {
+        if (nextNullIfPresent()) {
+            return null;
+        }
+        readStringToken();
+        if (textLength >= 16 && text[4] == '-' && text[7] == '-' && text[10] == 'T') {
+            LocalTime time = parseTime(11);
+            if (time != null) {
+                return LocalDateTime.of(LocalDate.of(digits(0, 4), digits(5, 2), digits(8, 2)), time);
+            }
+        }
+        return LocalDateTime.parse(new String(text, 0, textLength));
+    }
+
+    /**
+     * 跳过一个任意类型的值（包括嵌套的对象和数组）
+     */
+    public void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case '"':
+                readStringToken();
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                readNumberToken();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // ========== 词法 ==========
+
+    private void readStringToken() throws IOException {
+        expect('"');
+        textLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw syntaxError("字符串未结束");
+            }
+            char c = buffer[pos++];
+            consumed++;
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                appendText(readEscape());
+            } else {
+                appendText(c);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u': {
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(read(), 16);
+                    if (h < 0) {
+                        throw syntaxError("无效的 \\u 转义");
+                    }
+                    value = (value << 4) | h;
+                }
+                return (char) value;
+            }
+            default:
+                throw syntaxError("无效的转义字符 " + describe(c));
+        }
+    }
+
+    private void readNumberToken() throws IOException {
+        peekNonWhitespace();
+        textLength = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                appendText(c);
+                pos++;
+                consumed++;
+            } else {
+                break;
+            }
+        }
+        if (textLength == 0) {
+            throw syntaxError("应为数值");
+        }
+    }
+
+    /**
+     * 解析暂存区中的数值
+     * 不超过15位有效数字且小数位不超过22位时，整数除以10的幂结果是精确舍入的，
+     * 与 Double.parseDouble 一致；其余情况回退到 Double.parseDouble
+     */
+    private double parseDouble() {
+        long mantissa = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean negative = false;
+        boolean inFraction = false;
+        for (int i = 0; i < textLength; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digitCount++;
+                }
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c == '-' && i == 0) {
+                negative = true;
+            } else {
+                return Double.parseDouble(new String(text, 0, textLength));
+            }
+        }
+        if (digitCount > 15 || fractionDigits > 22) {
+            return Double.parseDouble(new String(text, 0, textLength));
+        }
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * 从暂存区 offset 处解析 HH:mm[:ss[.n...]]，格式不符时返回 null
+     */
+    private LocalTime parseTime(int offset) {
+        int length = textLength - offset;
+        if (length < 5 || text[offset + 2] != ':' || !isDigits(offset, 2) || !isDigits(offset + 3, 2)) {
+            return null;
+        }
+        int hour = digits(offset, 2);
+        int minute = digits(offset + 3, 2);
+        if (length == 5) {
+            return LocalTime.of(hour, minute);
+        }
+        if (length < 8 || text[offset + 5] != ':' || !isDigits(offset + 6, 2)) {
+            return null;
+        }
+        int second = digits(offset + 6, 2);
+        if (length == 8) {
+            return LocalTime.of(hour, minute, second);
+        }
+        int fractionLength = length - 9;
+        if (text[offset + 8] != '.' || fractionLength < 1 || fractionLength > 9
+                || !isDigits(offset + 9, fractionLength)) {
+            return null;
+        }
+        int nano = digits(offset + 9, fractionLength);
+        for (int i = fractionLength; i < 9; i++) {
+            nano *= 10;
+        }
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    private boolean isDigits(int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            if (text[i] < '0' || text[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int digits(int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("无效的数字: " + new String(text, 0, textLength));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 若暂存区内容等于某个已知常量则返回该常量，否则创建新字符串
+     */
+    private String internText() {
+        for (String candidate : known) {
+            if (candidate.length() == textLength && regionMatches(candidate)) {
+                return candidate;
+            }
+        }
+        return new String(text, 0, textLength);
+    }
+
+    private boolean regionMatches(String candidate) {
+        for (int i = 0; i < textLength; i++) {
+            if (candidate.charAt(i) != text[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendText(char c) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = c;
+    }
+
+    private void push() {
+        depth++;
+        if (depth == hasElement.length) {
+            hasElement = Arrays.copyOf(hasElement, depth * 2);
+        }
+        hasElement[depth] = false;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if (c != expected) {
+            throw syntaxError("应为 '" + expected + "' 但读到 " + describe(c));
+        }
+        pos++;
+        consumed++;
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        peekNonWhitespace();
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw syntaxError("应为 " + literal);
+            }
+        }
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\uFEFF') {
+                pos++;
+                consumed++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        consumed++;
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private String describe(int c) {
+        return c == -1 ? "文件结尾" : "'" + (char) c + "'";
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON格式错误（第 " + consumed + " 个字符附近）: " + message);
+    }
+}
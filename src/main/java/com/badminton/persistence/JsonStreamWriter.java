@@ -0,0 +1,258 @@
+package com.badminton.persistence;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * 流式 JSON 写入器
+ * 字段直接编码为 UTF-8 写入可复用的字节缓冲区，缓冲区满时整块写出；
+ * 转义、数字、日期时间都在一次遍历中写入，不经过 String.format 或中间字符串。
+ * 输出格式与原先 String.format + PrintWriter 的写法逐字节一致。
+ */
+public class JsonStreamWriter implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private long bytesWritten;
+
+    public JsonStreamWriter(OutputStream out) {
+        this(out, BUFFER_SIZE);
+    }
+
+    public JsonStreamWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * 已写出的总字节数（包括仍在缓冲区中的部分）
+     */
+    public long getBytesWritten() {
+        return bytesWritten + count;
+    }
+
+    /**
+     * 原样写入（不转义）
+     */
+    public JsonStreamWriter raw(String s) throws IOException {
+        for (int i = 0; i < s.length(); ) {
+            i += writeChar(s, i);
+        }
+        return this;
+    }
+
+    public JsonStreamWriter raw(char c) throws IOException {
+        if (c < 0x80) {
+            writeByte(c);
+        } else {
+            writeChar(String.valueOf(c), 0);
+        }
+        return this;
+    }
+
+    /**
+     * 写入平台换行符（对应 PrintWriter.println）
+     */
+    public JsonStreamWriter newLine() throws IOException {
+        return raw(LINE_SEPARATOR);
+    }
+
+    /**
+     * 写入带引号的字符串，null 写为空字符串
+     * 转义反斜杠、双引号、\n、\r、\t
+     */
+    public JsonStreamWriter string(String s) throws IOException {
+        writeByte('"');
+        if (s != null) {
+            for (int i = 0; i < s.length(); ) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '\\': writeByte('\\'); writeByte('\\'); break;
+                    case '"': writeByte('\\'); writeByte('"'); break;
+                    case '\n': writeByte('\\'); writeByte('n'); break;
+                    case '\r': writeByte('\\'); writeByte('r'); break;
+                    case '\t': writeByte('\\'); writeByte('t'); break;
+                    default:
+                        i += writeChar(s, i);
+                        continue;
+                }
+                i++;
+            }
+        }
+        writeByte('"');
+        return this;
+    }
+
+    public JsonStreamWriter number(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return raw(Long.toString(value));
+            }
+            writeByte('-');
+            value = -value;
+        }
+        writeDigits(value, 1);
+        return this;
+    }
+
+    /**
+     * 写入保留两位小数的数值，结果与 String.format("%.2f", value) 相同
+     * 值本身能精确表示为两位小数时（费用、评分基础值的常见情况）直接按整数写出，
+     * 其余情况交给 Formatter 以保证相同的舍入结果
+     */
+    public JsonStreamWriter fixed2(double value) throws IOException {
+        if (!Double.isNaN(value) && Math.abs(value) < 1e15) {
+            long cents = Math.round(value * 100);
+            if (cents / 100.0 == value) {
+                if (cents < 0 || (cents == 0 && 1 / value < 0)) {
+                    writeByte('-');
+                    cents = -cents;
+                }
+                writeDigits(cents / 100, 1);
+                writeByte('.');
+                writeDigits(cents % 100, 2);
+                return this;
+            }
+        }
+        return raw(String.format(Locale.ROOT, "%.2f", value));
+    }
+
+    /**
+     * 写入 yyyy-MM-dd（与 LocalDate.toString 相同）
+     */
+    public JsonStreamWriter date(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return raw(date.toString());
+        }
+        writeDigits(year, 4);
+        writeByte('-');
+        writeDigits(date.getMonthValue(), 2);
+        writeByte('-');
+        writeDigits(date.getDayOfMonth(), 2);
+        return this;
+    }
+
+    /**
+     * 写入 HH:mm[:ss[.SSS|.SSSSSS|.SSSSSSSSS]]（与 LocalTime.toString 相同）
+     */
+    public JsonStreamWriter time(LocalTime time) throws IOException {
+        writeDigits(time.getHour(), 2);
+        writeByte(':');
+        writeDigits(time.getMinute(), 2);
+        int second = time.getSecond();
+        int nano = time.getNano();
+        if (second > 0 || nano > 0) {
+            writeByte(':');
+            writeDigits(second, 2);
+            if (nano > 0) {
+                writeByte('.');
+                if (nano % 1000_000 == 0) {
+                    writeDigits(nano / 1000_000, 3);
+                } else if (nano % 1000 == 0) {
+                    writeDigits(nano / 1000, 6);
+                } else {
+                    writeDigits(nano, 9);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 写入 yyyy-MM-ddTHH:mm...（与 LocalDateTime.toString 相同）
+     */
+    public JsonStreamWriter dateTime(LocalDateTime dateTime) throws IOException {
+        date(dateTime.toLocalDate());
+        writeByte('T');
+        return time(dateTime.toLocalTime());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            bytesWritten += count;
+            count = 0;
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    /**
+     * 将 s 在 index 处的字符（或代理对）按 UTF-8 编码写入，返回消耗的 char 数
+     */
+    private int writeChar(String s, int index) throws IOException {
+        char c = s.charAt(index);
+        if (c < 0x80) {
+            writeByte(c);
+        } else if (c < 0x800) {
+            writeByte(0xC0 | (c >> 6));
+            writeByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(index + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(index + 1));
+            writeByte(0xF0 | (cp >> 18));
+            writeByte(0x80 | ((cp >> 12) & 0x3F));
+            writeByte(0x80 | ((cp >> 6) & 0x3F));
+            writeByte(0x80 | (cp & 0x3F));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            writeByte('?'); // 不成对的代理字符，与 OutputStreamWriter 的替换行为一致
+        } else {
+            writeByte(0xE0 | (c >> 12));
+            writeByte(0x80 | ((c >> 6) & 0x3F));
+            writeByte(0x80 | (c & 0x3F));
+        }
+        return 1;
+    }
+
+    /**
+     * 写入非负整数，不足 minWidth 位时左侧补零
+     */
+    private void writeDigits(long value, int minWidth) throws IOException {
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < minWidth; i++) {
+            writeByte('0');
+        }
+        if (count + digits > buffer.length) {
+            flushBuffer();
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+    }
+}
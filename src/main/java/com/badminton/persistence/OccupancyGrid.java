@@ -0,0 +1,142 @@
+package com.badminton.persistence;
+
+import com.badminton.model.Booking;
+import com.badminton.model.TimeSlot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个场地单日的占用位图
+ * 将营业时间按固定粒度（默认 15 分钟）划分为若干格，每格一位，保存在 long 数组中：
+ * touched 表示该格与某个预约有重叠，full 表示该格被某个预约完全覆盖。
+ * 查询时段与两组位做掩码与运算：与 full 有交集必然冲突，与 touched 无交集必然空闲；
+ * 只有时段或预约没有按格对齐时才无法判定，由调用方回退到精确的区间比较。
+ */
+public class OccupancyGrid {
+    /** 时段空闲 */
+    public static final int FREE = 0;
+    /** 时段已被占用 */
+    public static final int OCCUPIED = 1;
+    /** 位图无法判定（未按格对齐或超出营业时间），需要精确比较 */
+    public static final int UNKNOWN = 2;
+
+    private final int openSecond;
+    private final int closeSecond;
+    private final int cellSeconds;
+    private final long[] touched;
+    private final long[] full;
+
+    /**
+     * @param openSecond 营业开始时间（当天秒数）
+     * @param closeSecond 营业结束时间（当天秒数，可为 86400 表示到午夜）
+     * @param cellSeconds 每格的秒数
+     */
+    public OccupancyGrid(int openSecond, int closeSecond, int cellSeconds) {
+        if (cellSeconds <= 0 || openSecond < 0 || closeSecond <= openSecond) {
+            throw new IllegalArgumentException("无效的营业时间或粒度");
+        }
+        this.openSecond = openSecond;
+        this.closeSecond = closeSecond;
+        this.cellSeconds = cellSeconds;
+        int cells = (closeSecond - openSecond + cellSeconds - 1) / cellSeconds;
+        this.touched = new long[(cells + 63) >>> 6];
+        this.full = new long[touched.length];
+    }
+
+    /**
+     * 按当天的预约列表重新计算位图
+     */
+    public void rebuild(List<Booking> bookings) {
+        Arrays.fill(touched, 0L);
+        Arrays.fill(full, 0L);
+        for (Booking booking : bookings) {
+            TimeSlot slot = booking.getSlot();
+            mark(slot.getStartSecondOfDay(), slot.getEndSecondOfDay());
+        }
+    }
+
+    /**
+     * 查询 [startSecond, endSecond) 的占用情况，返回 FREE、OCCUPIED 或 UNKNOWN
+     */
+    public int query(int startSecond, int endSecond) {
+        if (startSecond < openSecond || endSecond > closeSecond || endSecond <= startSecond) {
+            return UNKNOWN;
+        }
+        int first = (startSecond - openSecond) / cellSeconds;
+        int last = (endSecond - openSecond - 1) / cellSeconds;
+        if (anySet(full, first, last)) {
+            return OCCUPIED;
+        }
+        if (!anySet(touched, first, last)) {
+            return FREE;
+        }
+        return UNKNOWN;
+    }
+
+    private void mark(int startSecond, int endSecond) {
+        if (endSecond <= startSecond) {
+            // 无效时段（旧数据）：TimeSlot.overlaps 仍会对包含 [end, start] 的时段报告冲突，
+            // 只标记 touched，使这些查询返回 UNKNOWN 并回退到精确比较
+            int lo = Math.max(endSecond - 1, openSecond);
+            int hi = Math.min(startSecond, closeSecond - 1);
+            if (lo <= hi) {
+                setRange(touched, (lo - openSecond) / cellSeconds, (hi - openSecond) / cellSeconds);
+            }
+            return;
+        }
+        int start = Math.max(startSecond, openSecond);
+        int end = Math.min(endSecond, closeSecond);
+        if (end <= start) {
+            return; // 完全在营业时间之外
+        }
+        setRange(touched, (start - openSecond) / cellSeconds, (end - openSecond - 1) / cellSeconds);
+        // 完全覆盖的格：开始处向上取整，结束处向下取整
+        int firstFull = (start - openSecond + cellSeconds - 1) / cellSeconds;
+        int lastFull = (end - openSecond) / cellSeconds - 1;
+        if (firstFull <= lastFull) {
+            setRange(full, firstFull, lastFull);
+        }
+    }
+
+    /**
+     * 将第 from 到第 to 格（含）置位
+     */
+    private static void setRange(long[] words, int from, int to) {
+        int fromWord = from >>> 6;
+        int toWord = to >>> 6;
+        long firstMask = -1L << from;        // 移位数只取低 6 位
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (fromWord == toWord) {
+            words[fromWord] |= firstMask & lastMask;
+            return;
+        }
+        words[fromWord] |= firstMask;
+        for (int i = fromWord + 1; i < toWord; i++) {
+            words[i] = -1L;
+        }
+        words[toWord] |= lastMask;
+    }
+
+    /**
+     * 第 from 到第 to 格（含）中是否有任一位被置位
+     */
+    private static boolean anySet(long[] words, int from, int to) {
+        int fromWord = from >>> 6;
+        int toWord = to >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (fromWord == toWord) {
+            return (words[fromWord] & firstMask & lastMask) != 0;
+        }
+        if ((words[fromWord] & firstMask) != 0) {
+            return true;
+        }
+        for (int i = fromWord + 1; i < toWord; i++) {
+            if (words[i] != 0) {
+                return true;
+            }
+        }
+        return (words[toWord] & lastMask) != 0;
+    }
+}
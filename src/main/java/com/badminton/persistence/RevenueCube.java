@@ -0,0 +1,236 @@
+package com.badminton.persistence;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+import com.badminton.model.CourtType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 日期 × 场地 × 场地类型 × 预约状态 汇总的预约数和费用
+ * 每个 (场地, 状态)、(场地类型, 状态) 以及每个状态的总计各有一棵按日期分块的树状数组（Fenwick 树），
+ * 保存每天的预约数和费用（以分为单位的整数，避免浮点累计误差），任意日期区间的查询只与区间内
+ * 有数据的块数有关，与历史预约总数无关。预约加入存储和状态变化时增量更新，加载时由全部预约重建。
+ *
+ * 线程安全：各棵树各自加锁，更新为 O(log 块大小)，查询为 O(区间内的块数 + log 块大小)。
+ */
+public class RevenueCube {
+    private static final BookingState[] STATES = BookingState.values();
+
+    private final DayTree[] totals = newTrees();
+    private final Map<CourtType, DayTree[]> byType = new EnumMap<>(CourtType.class);
+    private final Map<String, DayTree[]> byCourt = new ConcurrentHashMap<>();
+
+    public RevenueCube() {
+        for (CourtType type : CourtType.values()) {
+            byType.put(type, newTrees());
+        }
+    }
+
+    private static DayTree[] newTrees() {
+        DayTree[] trees = new DayTree[STATES.length];
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new DayTree();
+        }
+        return trees;
+    }
+
+    /**
+     * 预约加入存储时调用
+     * @param type 预约场地的类型（场地不存在时为 null，只计入场地和总计）
+     * @param state 加入时的状态（之后的变化通过 move 计入）
+     */
+    public void add(Booking booking, CourtType type, BookingState state) {
+        if (state != null) {
+            apply(booking, type, state, 1);
+        }
+    }
+
+    /**
+     * 预约状态由 previous 变为 state 时调用
+     */
+    public void move(Booking booking, CourtType type, BookingState previous, BookingState state) {
+        if (previous == state) {
+            return;
+        }
+        if (previous != null) {
+            apply(booking, type, previous, -1);
+        }
+        if (state != null) {
+            apply(booking, type, state, 1);
+        }
+    }
+
+    private void apply(Booking booking, CourtType type, BookingState state, int sign) {
+        if (booking.getSlot() == null || !booking.getSlot().isComplete()) {
+            return;
+        }
+        long day = booking.getSlot().getEpochDay();
+        long cents = sign * toCents(booking.getFee());
+        int s = state.ordinal();
+        totals[s].add(day, sign, cents);
+        if (type != null) {
+            byType.get(type)[s].add(day, sign, cents);
+        }
+        if (booking.getCourtId() != null) {
+            byCourt.computeIfAbsent(booking.getCourtId(), k -> newTrees())[s].add(day, sign, cents);
+        }
+    }
+
+    public void clear() {
+        for (DayTree tree : totals) {
+            tree.clear();
+        }
+        for (DayTree[] trees : byType.values()) {
+            for (DayTree tree : trees) {
+                tree.clear();
+            }
+        }
+        byCourt.clear();
+    }
+
+    /**
+     * 日期区间 [fromDay, toDay]（epochDay，含两端）内处于 state 的预约数和费用，state 为 null 表示所有状态
+     */
+    public Totals query(BookingState state, long fromDay, long toDay) {
+        return sum(totals, state, fromDay, toDay);
+    }
+
+    /**
+     * 指定场地在日期区间内处于 state 的预约数和费用
+     */
+    public Totals queryCourt(String courtId, BookingState state, long fromDay, long toDay) {
+        DayTree[] trees = courtId != null ? byCourt.get(courtId) : null;
+        return trees != null ? sum(trees, state, fromDay, toDay) : Totals.ZERO;
+    }
+
+    /**
+     * 指定场地类型在日期区间内处于 state 的预约数和费用
+     */
+    public Totals queryType(CourtType type, BookingState state, long fromDay, long toDay) {
+        return type != null ? sum(byType.get(type), state, fromDay, toDay) : Totals.ZERO;
+    }
+
+    private static Totals sum(DayTree[] trees, BookingState state, long fromDay, long toDay) {
+        long[] acc = new long[2];
+        if (state != null) {
+            trees[state.ordinal()].sum(fromDay, toDay, acc);
+        } else {
+            for (DayTree tree : trees) {
+                tree.sum(fromDay, toDay, acc);
+            }
+        }
+        return new Totals(acc[0], acc[1]);
+    }
+
+    private static long toCents(double fee) {
+        return Math.round(fee * 100);
+    }
+
+    /**
+     * 查询结果：预约数和费用
+     */
+    public static final class Totals {
+        public static final Totals ZERO = new Totals(0, 0);
+
+        private final long count;
+        private final long cents;
+
+        Totals(long count, long cents) {
+            this.count = count;
+            this.cents = cents;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 费用合计（元）
+         */
+        public double getRevenue() {
+            return cents / 100.0;
+        }
+    }
+
+    /**
+     * 按日期分块的树状数组，同时累计预约数和费用（分）
+     * 每块固定覆盖 CHUNK_DAYS 天，只为出现过预约的块分配空间，内存与有数据的块数成正比，
+     * 与日期跨度无关（远期或错误的日期只多占一块）。区间查询对首尾两块做树状数组前缀和，
+     * 中间的块直接取块内合计。
+     */
+    private static final class DayTree {
+        private static final int CHUNK_DAYS = 512;
+
+        private final TreeMap<Long, Chunk> chunks = new TreeMap<>(); // 块号（epochDay / CHUNK_DAYS）-> 块
+
+        synchronized void add(long day, long count, long amount) {
+            chunks.computeIfAbsent(Math.floorDiv(day, CHUNK_DAYS), k -> new Chunk())
+                    .add(Math.floorMod(day, CHUNK_DAYS), count, amount);
+        }
+
+        /**
+         * 将 [fromDay, toDay] 的预约数和费用累加到 acc[0]、acc[1]
+         */
+        synchronized void sum(long fromDay, long toDay, long[] acc) {
+            if (fromDay > toDay) {
+                return;
+            }
+            long first = Math.floorDiv(fromDay, CHUNK_DAYS);
+            long last = Math.floorDiv(toDay, CHUNK_DAYS);
+            for (Map.Entry<Long, Chunk> entry : chunks.subMap(first, true, last, true).entrySet()) {
+                long key = entry.getKey();
+                int lo = key == first ? Math.floorMod(fromDay, CHUNK_DAYS) : 0;
+                int hi = key == last ? Math.floorMod(toDay, CHUNK_DAYS) : CHUNK_DAYS - 1;
+                entry.getValue().sum(lo, hi, acc);
+            }
+        }
+
+        synchronized void clear() {
+            chunks.clear();
+        }
+
+        /**
+         * 一块日期的树状数组（下标从 1 开始）及块内合计
+         */
+        private static final class Chunk {
+            private final long[] counts = new long[CHUNK_DAYS + 1];
+            private final long[] cents = new long[CHUNK_DAYS + 1];
+            private long totalCount;
+            private long totalCents;
+
+            void add(int offset, long count, long amount) {
+                for (int i = offset + 1; i <= CHUNK_DAYS; i += i & -i) {
+                    counts[i] += count;
+                    cents[i] += amount;
+                }
+                totalCount += count;
+                totalCents += amount;
+            }
+
+            /**
+             * 块内第 lo 到第 hi 天（含两端）
+             */
+            void sum(int lo, int hi, long[] acc) {
+                if (lo == 0 && hi == CHUNK_DAYS - 1) {
+                    acc[0] += totalCount;
+                    acc[1] += totalCents;
+                    return;
+                }
+                acc[0] += prefix(counts, hi + 1) - prefix(counts, lo);
+                acc[1] += prefix(cents, hi + 1) - prefix(cents, lo);
+            }
+
+            private static long prefix(long[] tree, int n) {
+                long total = 0;
+                for (int i = n; i > 0; i -= i & -i) {
+                    total += tree[i];
+                }
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.badminton.persistence;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * 只追加的分段列表，每次追加后发布一个不可变的快照
+ * 元素保存在固定大小（1024）的段中，快照只记录段目录和元素个数：
+ * 追加只写入快照范围之外的位置，已发布的快照永远不会看到变化，因此各快照共享同一批段，
+ * 取快照是一次 volatile 读（O(1)），遍历时既不加锁也不复制。
+ * 写入方之间由对象锁串行化；段目录只在新增段时扩容（按倍数增长）。
+ *
+ * 快照固定的是“有哪些元素”，元素对象本身（如预约状态）仍可能被修改。
+ */
+public class SnapshotList<T> {
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // 以下字段由 this 保护
+    private Object[][] segments = new Object[4][];
+    private int size;
+
+    private volatile Snapshot<T> snapshot = new Snapshot<>(segments, 0);
+
+    /**
+     * 追加一个元素并发布新快照
+     */
+    public synchronized void add(T element) {
+        append(element);
+        snapshot = new Snapshot<>(segments, size);
+    }
+
+    /**
+     * 追加多个元素，全部追加后只发布一次快照
+     */
+    public synchronized void addAll(Collection<? extends T> elements) {
+        for (T element : elements) {
+            append(element);
+        }
+        snapshot = new Snapshot<>(segments, size);
+    }
+
+    private void append(T element) {
+        int segment = size >>> SEGMENT_SHIFT;
+        if (segment == segments.length) {
+            // 旧快照仍引用旧目录，其中的段与新目录共享
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        if (segments[segment] == null) {
+            segments[segment] = new Object[SEGMENT_SIZE];
+        }
+        segments[segment][size & SEGMENT_MASK] = element;
+        size++;
+    }
+
+    /**
+     * 当前已发布的快照（只读）
+     */
+    public Snapshot<T> snapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * 某一时刻的只读视图，创建后大小和内容都不再变化
+     */
+    public static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] segments;
+        private final int size;
+
+        Snapshot(Object[][] segments, int size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (T) segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            return toArray(new Object[size]);
+        }
+
+        /**
+         * 按段整体复制，比逐个 get 更快
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public <E> E[] toArray(E[] a) {
+            E[] result = a.length >= size ? a
+                    : (E[]) Array.newInstance(a.getClass().getComponentType(), size);
+            for (int copied = 0; copied < size; copied += SEGMENT_SIZE) {
+                System.arraycopy(segments[copied >>> SEGMENT_SHIFT], 0, result, copied,
+                        Math.min(SEGMENT_SIZE, size - copied));
+            }
+            if (result.length > size) {
+                result[size] = null;
+            }
+            return result;
+        }
+    }
+}
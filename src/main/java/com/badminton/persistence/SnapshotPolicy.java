@@ -0,0 +1,63 @@
+package com.badminton.persistence;
+
+/**
+ * 快照触发策略
+ * 日志记录数或字节数任一达到阈值时，JsonDB 在后台生成快照并压缩日志。
+ * 默认值可通过系统属性 badminton.snapshot.records / badminton.snapshot.bytes 覆盖。
+ */
+public class SnapshotPolicy {
+    private static final long DEFAULT_MAX_RECORDS = 1000;
+    private static final long DEFAULT_MAX_BYTES = 1024 * 1024; // 1MB
+
+    private final long maxJournalRecords;
+    private final long maxJournalBytes;
+
+    /**
+     * @param maxJournalRecords 日志记录数阈值，<= 0 表示不按记录数触发
+     * @param maxJournalBytes 日志字节数阈值，<= 0 表示不按大小触发
+     */
+    public SnapshotPolicy(long maxJournalRecords, long maxJournalBytes) {
+        this.maxJournalRecords = maxJournalRecords;
+        this.maxJournalBytes = maxJournalBytes;
+    }
+
+    /**
+     * 默认策略（可被系统属性覆盖）
+     */
+    public static SnapshotPolicy defaults() {
+        return new SnapshotPolicy(
+                Long.getLong("badminton.snapshot.records", DEFAULT_MAX_RECORDS),
+                Long.getLong("badminton.snapshot.bytes", DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * 从不自动生成快照（仅在显式调用 saveToFile 时写快照）
+     */
+    public static SnapshotPolicy never() {
+        return new SnapshotPolicy(0, 0);
+    }
+
+    public long getMaxJournalRecords() {
+        return maxJournalRecords;
+    }
+
+    public long getMaxJournalBytes() {
+        return maxJournalBytes;
+    }
+
+    /**
+     * 判断当前日志是否需要生成快照
+     */
+    public boolean shouldSnapshot(long journalRecords, long journalBytes) {
+        return (maxJournalRecords > 0 && journalRecords >= maxJournalRecords)
+                || (maxJournalBytes > 0 && journalBytes >= maxJournalBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotPolicy{" +
+                "maxJournalRecords=" + maxJournalRecords +
+                ", maxJournalBytes=" + maxJournalBytes +
+                '}';
+    }
+}
@@ -1,15 +1,21 @@
 package com.badminton.service;
 
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.ServiceMetrics;
 import com.badminton.model.Admin;
 import com.badminton.model.Booking;
 import com.badminton.model.BookingState;
 import com.badminton.persistence.JsonDB;
 import com.badminton.util.BusinessException;
 
+import java.util.concurrent.locks.Lock;
+
 /**
  * 管理员服务类
  */
 public class AdminService {
+    private static final ServiceMetrics METRICS = Metrics.forService(AdminService.class);
+
     private JsonDB db;
 
     public AdminService(JsonDB db) {
@@ -20,6 +26,17 @@ public class AdminService {
      * 管理员登录
      */
     public Admin loginAdmin(String adminId, String password) throws BusinessException {
+        return METRICS.call("loginAdmin", () -> doLoginAdmin(adminId, password));
+    }
+
+    /**
+     * 确认预约完成
+     */
+    public void confirmBookingCompleted(String bookingId) throws BusinessException {
+        METRICS.run("confirmBookingCompleted", () -> doConfirmBookingCompleted(bookingId));
+    }
+
+    private Admin doLoginAdmin(String adminId, String password) throws BusinessException {
         if (adminId == null || adminId.trim().isEmpty()) {
             throw new BusinessException("工号不能为空");
         }
@@ -36,25 +53,34 @@ public class AdminService {
         return admin;
     }
 
-    /**
-     * 确认预约完成
-     */
-    public void confirmBookingCompleted(String bookingId) throws BusinessException {
+    private void doConfirmBookingCompleted(String bookingId) throws BusinessException {
         Booking booking = db.findBookingById(bookingId);
         if (booking == null) {
             throw new BusinessException("预约不存在");
         }
 
-        if (booking.getState() == BookingState.COMPLETED) {
-            throw new BusinessException("该预约已完成");
-        }
+        // 状态变更在预约所在 (场地, 日期) 的分段锁内进行，与 createBooking 的写入互斥
+        Lock lock = db.lockFor(booking);
+        lock.lock();
+        try {
+            // 按读到的 (状态, 版本号) 做 CAS；与学生取消并发时只有一方成功，另一方重新读取后按新状态报错
+            while (true) {
+                long version = booking.getVersion();
+                BookingState state = booking.getState();
+                if (state == BookingState.COMPLETED) {
+                    throw new BusinessException("该预约已完成");
+                }
 
-        if (booking.getState() == BookingState.CANCELLED) {
-            throw new BusinessException("该预约已取消，无法确认完成");
-        }
+                if (state == BookingState.CANCELLED) {
+                    throw new BusinessException("该预约已取消，无法确认完成");
+                }
 
-        booking.setState(BookingState.COMPLETED);
-        db.saveToFile();
+                if (db.compareAndSetBookingState(booking, state, version, BookingState.COMPLETED)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 }
-
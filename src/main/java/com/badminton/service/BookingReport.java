@@ -0,0 +1,227 @@
+package com.badminton.service;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * 按场地汇总的即席预约报表
+ * 对预约快照中符合条件（日期区间 + 任意过滤条件）的预约，按场地统计各状态的预约数、
+ * 已完成预约的收入和评分。累加器是按场地下标排列的 long 数组，不使用装箱的 Map；
+ * 费用以分为单位累加，整数加法满足结合律，顺序与并行两种方式的结果完全相同。
+ *
+ * 并行方式把快照按固定阈值二分为若干段，在 ForkJoinPool 上分别累加后逐层合并；
+ * 拆分只取决于预约数，与线程数和调度无关。
+ */
+public class BookingReport {
+    /** 至少这么多条预约才继续拆分 */
+    static final int SPLIT_THRESHOLD = 8192;
+
+    private static final BookingState[] STATES = BookingState.values();
+    // 每个场地占用的累加器槽位：各状态的预约数、已完成收入（分）、评分总和、评分次数
+    private static final int REVENUE = STATES.length;
+    private static final int RATING_SUM = REVENUE + 1;
+    private static final int RATING_COUNT = REVENUE + 2;
+    private static final int STRIDE = REVENUE + 3;
+
+    private final List<String> courtIds;
+    private final Map<String, Integer> courtIndex;
+    private final long[] totals; // 最后一组槽位为不存在的场地
+
+    private BookingReport(List<String> courtIds, Map<String, Integer> courtIndex, long[] totals) {
+        this.courtIds = courtIds;
+        this.courtIndex = courtIndex;
+        this.totals = totals;
+    }
+
+    /**
+     * 生成报表
+     * @param bookings 预约快照（生成期间不应被修改）
+     * @param courtIds 报表中的场地（其余场地的预约只计入合计）
+     * @param fromDay 开始日期（epochDay，含）
+     * @param toDay 结束日期（epochDay，含）
+     * @param filter 额外的过滤条件，可为 null
+     * @param pool 并行执行使用的线程池，为 null 时在当前线程顺序执行
+     */
+    static BookingReport build(List<Booking> bookings, List<String> courtIds, long fromDay, long toDay,
+                               Predicate<Booking> filter, ForkJoinPool pool) {
+        Map<String, Integer> courtIndex = new LinkedHashMap<>(courtIds.size() * 2);
+        for (String courtId : courtIds) {
+            courtIndex.putIfAbsent(courtId, courtIndex.size());
+        }
+        List<String> ids = Collections.unmodifiableList(new ArrayList<>(courtIndex.keySet()));
+        Scan scan = new Scan(bookings, courtIndex, fromDay, toDay, filter);
+        long[] totals = pool != null
+                ? pool.invoke(new ScanTask(scan, 0, bookings.size()))
+                : scan.reduce(0, bookings.size());
+        return new BookingReport(ids, courtIndex, totals);
+    }
+
+    /**
+     * 报表中的场地（按场地列表顺序）
+     */
+    public List<String> getCourtIds() {
+        return courtIds;
+    }
+
+    /**
+     * 指定场地处于 state 的预约数
+     */
+    public long getCount(String courtId, BookingState state) {
+        int base = baseOf(courtId);
+        return base >= 0 ? totals[base + state.ordinal()] : 0;
+    }
+
+    /**
+     * 指定场地已完成预约的收入
+     */
+    public double getRevenue(String courtId) {
+        int base = baseOf(courtId);
+        return base >= 0 ? totals[base + REVENUE] / 100.0 : 0.0;
+    }
+
+    public long getRatingCount(String courtId) {
+        int base = baseOf(courtId);
+        return base >= 0 ? totals[base + RATING_COUNT] : 0;
+    }
+
+    public double getAverageRating(String courtId) {
+        int base = baseOf(courtId);
+        return base >= 0 && totals[base + RATING_COUNT] > 0
+                ? (double) totals[base + RATING_SUM] / totals[base + RATING_COUNT] : 0.0;
+    }
+
+    /**
+     * 所有场地（包括不在报表场地列表中的）处于 state 的预约数
+     */
+    public long getTotalCount(BookingState state) {
+        return sumColumn(state.ordinal());
+    }
+
+    /**
+     * 所有场地已完成预约的收入
+     */
+    public double getTotalRevenue() {
+        return sumColumn(REVENUE) / 100.0;
+    }
+
+    private long sumColumn(int column) {
+        long sum = 0;
+        for (int base = 0; base < totals.length; base += STRIDE) {
+            sum += totals[base + column];
+        }
+        return sum;
+    }
+
+    private int baseOf(String courtId) {
+        Integer index = courtId != null ? courtIndex.get(courtId) : null;
+        return index != null ? index * STRIDE : -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BookingReport)) return false;
+        BookingReport other = (BookingReport) o;
+        return courtIds.equals(other.courtIds) && Arrays.equals(totals, other.totals);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * courtIds.hashCode() + Arrays.hashCode(totals);
+    }
+
+    /**
+     * 扫描条件与累加逻辑，各段共享（只读）
+     */
+    private static final class Scan {
+        private final List<Booking> bookings;
+        private final Map<String, Integer> courtIndex;
+        private final int otherBase; // 不在场地列表中的预约计入的槽位
+        private final long fromDay;
+        private final long toDay;
+        private final Predicate<Booking> filter;
+
+        Scan(List<Booking> bookings, Map<String, Integer> courtIndex, long fromDay, long toDay,
+             Predicate<Booking> filter) {
+            this.bookings = bookings;
+            this.courtIndex = courtIndex;
+            this.otherBase = courtIndex.size() * STRIDE;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.filter = filter;
+        }
+
+        /**
+         * 累加 [from, to) 范围内的预约
+         */
+        long[] reduce(int from, int to) {
+            long[] acc = new long[otherBase + STRIDE];
+            for (int i = from; i < to; i++) {
+                Booking booking = bookings.get(i);
+                if (booking == null || booking.getSlot() == null || booking.getState() == null) {
+                    continue;
+                }
+                long day = booking.getSlot().getEpochDay();
+                if (day < fromDay || day > toDay || (filter != null && !filter.test(booking))) {
+                    continue;
+                }
+                Integer index = booking.getCourtId() != null ? courtIndex.get(booking.getCourtId()) : null;
+                int base = index != null ? index * STRIDE : otherBase;
+                BookingState state = booking.getState();
+                acc[base + state.ordinal()]++;
+                if (state == BookingState.COMPLETED) {
+                    acc[base + REVENUE] += Math.round(booking.getFee() * 100);
+                }
+                int rating = booking.getRating();
+                if (rating > 0) {
+                    acc[base + RATING_SUM] += rating;
+                    acc[base + RATING_COUNT]++;
+                }
+            }
+            return acc;
+        }
+    }
+
+    /**
+     * 二分拆分的累加任务：段长不超过阈值时直接累加，否则拆成两半，合并时逐项相加
+     */
+    private static final class ScanTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        ScanTask(Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return scan.reduce(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask right = new ScanTask(scan, mid, to);
+            right.fork();
+            long[] acc = new ScanTask(scan, from, mid).compute();
+            long[] rightAcc = right.join();
+            for (int i = 0; i < acc.length; i++) {
+                acc[i] += rightAcc[i];
+            }
+            return acc;
+        }
+    }
+}
@@ -1,16 +1,24 @@
 package com.badminton.service;
 
+import com.badminton.metrics.ConflictCheckEvent;
+import com.badminton.metrics.FlightEvents;
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.ServiceMetrics;
 import com.badminton.model.*;
 import com.badminton.persistence.JsonDB;
 import com.badminton.util.BusinessException;
 import com.badminton.util.FeePolicy;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  * 预约服务类
  */
 public class BookingService {
+    private static final ServiceMetrics METRICS = Metrics.forService(BookingService.class);
+
     private JsonDB db;
     private FeePolicy feePolicy;
 
@@ -21,8 +29,58 @@ public class BookingService {
 
     /**
      * 创建预约
+     * 冲突检测与写入在 (场地, 日期) 分段锁内完成，同一场地同一天的并发预约依次进行，
+     * 不同场地的预约互不阻塞
      */
     public Booking createBooking(String studentId, String courtId, TimeSlot slot) throws BusinessException {
+        return METRICS.call("createBooking", () -> doCreateBooking(studentId, courtId, slot));
+    }
+
+    /**
+     * 取消预约
+     */
+    public void cancelBooking(String studentId, String bookingId) throws BusinessException {
+        METRICS.run("cancelBooking", () -> doCancelBooking(studentId, bookingId));
+    }
+
+    /**
+     * 获取学生的所有预约
+     * 通过学号索引只取该学生自己的预约，不扫描全部历史
+     */
+    public Booking[] getBookingsByStudent(String studentId) {
+        return METRICS.get("getBookingsByStudent", () -> db.findBookingsByStudentId(studentId));
+    }
+
+    /**
+     * 检测预约冲突
+     * 只检查该场地当天的未取消预约（场地-日期索引），与历史预约总数无关
+     */
+    public boolean isConflict(String courtId, TimeSlot slot) {
+        return METRICS.get("isConflict", () -> doIsConflict(courtId, slot));
+    }
+
+    /**
+     * 对预约进行评分
+     */
+    public void rateBooking(String studentId, String bookingId, int rating) throws BusinessException {
+        METRICS.run("rateBooking", () -> doRateBooking(studentId, bookingId, rating));
+    }
+
+    /**
+     * 获取所有预约（只读快照，不复制）
+     */
+    public List<Booking> getAllBookings() {
+        return METRICS.get("getAllBookings", () -> db.getBookingSnapshot());
+    }
+
+    private Booking doCreateBooking(String studentId, String courtId, TimeSlot slot) throws BusinessException {
+        if (slot == null || !slot.isComplete()) {
+            throw new BusinessException("预约时段不完整");
+        }
+        if (!slot.getEnd().isAfter(slot.getStart())) {
+            throw new BusinessException("结束时间必须晚于开始时间");
+        }
+
         Student student = db.findStudentById(studentId);
         if (student == null) {
             throw new BusinessException("学生不存在");
@@ -33,39 +91,42 @@ public class BookingService {
             throw new BusinessException("场地不存在");
         }
 
-        if (court.getStatus() == CourtStatus.MAINTENANCE) {
-            throw new BusinessException("该场地正在维护中，不可预约");
-        }
+        Lock lock = db.lockFor(courtId, slot.getDate());
+        lock.lock();
+        try {
+            if (court.getStatus() == CourtStatus.MAINTENANCE) {
+                throw new BusinessException("该场地正在维护中，不可预约");
+            }
 
-        if (isConflict(courtId, slot)) {
-            throw new BusinessException("该时段场地已被预约");
-        }
+            if (doIsConflict(courtId, slot)) {
+                throw new BusinessException("该时段场地已被预约");
+            }
 
-        // 计算费用
-        double fee = feePolicy.computeFee(court.getType(), slot);
-
-        // 创建预约
-        Booking booking = new Booking(
-                db.generateBookingId(),
-                student,
-                courtId,
-                slot,
-                BookingState.PENDING,
-                fee,
-                0,
-                LocalDateTime.now()
-        );
-
-        db.addBooking(booking);
-        db.saveToFile();
-
-        return booking;
+            // 计算费用
+            double fee = feePolicy.computeFee(court.getType(), slot);
+
+            // 创建预约
+            Booking booking = new Booking(
+                    db.generateBookingId(),
+                    student,
+                    courtId,
+                    slot,
+                    BookingState.PENDING,
+                    fee,
+                    0,
+                    LocalDateTime.now()
+            );
+
+            // 追加一条日志记录即可，不再重写全部数据文件
+            db.addBooking(booking);
+
+            return booking;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    /**
-     * 取消预约
-     */
-    public void cancelBooking(String studentId, String bookingId) throws BusinessException {
+    private void doCancelBooking(String studentId, String bookingId) throws BusinessException {
         Booking booking = db.findBookingById(bookingId);
         if (booking == null) {
             throw new BusinessException("预约不存在");
@@ -76,61 +137,43 @@ public class BookingService {
             throw new BusinessException("无权取消该预约");
         }
 
-        // 检查状态
-        if (booking.getState() == BookingState.CANCELLED) {
-            throw new BusinessException("该预约已取消");
-        }
-
-        if (booking.getState() == BookingState.COMPLETED) {
-            throw new BusinessException("该预约已完成，无法取消");
-        }
-
-        booking.setState(BookingState.CANCELLED);
-        db.saveToFile();
-    }
-
-    /**
-     * 获取学生的所有预约
-     */
-    public Booking[] getBookingsByStudent(String studentId) {
-        java.util.List<Booking> result = new java.util.ArrayList<>();
-        Booking[] bookings = db.getBookings();
-
-        for (int i = 0; i < db.getBookingCount(); i++) {
-            Booking booking = bookings[i];
-            if (booking != null && booking.getStudent().getStudentId().equals(studentId)) {
-                result.add(booking);
+        // 与 createBooking 使用同一个 (场地, 日期) 分段锁，不会插入到新预约写入索引的过程中
+        Lock lock = db.lockFor(booking);
+        lock.lock();
+        try {
+            // 按读到的 (状态, 版本号) 做 CAS；期间被其他操作修改（如管理员确认完成）时重新读取再检查
+            while (true) {
+                long version = booking.getVersion();
+                BookingState state = booking.getState();
+                if (state == BookingState.CANCELLED) {
+                    throw new BusinessException("该预约已取消");
+                }
+
+                if (state == BookingState.COMPLETED) {
+                    throw new BusinessException("该预约已完成，无法取消");
+                }
+
+                if (db.compareAndSetBookingState(booking, state, version, BookingState.CANCELLED)) {
+                    return;
+                }
             }
+        } finally {
+            lock.unlock();
         }
-
-        return result.toArray(new Booking[0]);
     }
 
-    /**
-     * 检测预约冲突
-     */
-    public boolean isConflict(String courtId, TimeSlot slot) {
-        Booking[] bookings = db.getBookings();
-
-        for (int i = 0; i < db.getBookingCount(); i++) {
-            Booking booking = bookings[i];
-            if (booking == null) continue;
-
-            if (!booking.getCourtId().equals(courtId)) continue;
-            if (booking.getState() == BookingState.CANCELLED) continue;
-
-            if (booking.getSlot().overlaps(slot)) {
-                return true;
-            }
+    private boolean doIsConflict(String courtId, TimeSlot slot) {
+        ConflictCheckEvent event = FlightEvents.conflictCheck();
+        if (event == null) {
+            return db.hasConflict(courtId, slot);
         }
-
-        return false;
+        int[] examined = new int[1];
+        boolean conflict = db.hasConflict(courtId, slot, examined);
+        event.finish(courtId, slot, examined[0], conflict);
+        return conflict;
     }
 
-    /**
-     * 对预约进行评分
-     */
-    public void rateBooking(String studentId, String bookingId, int rating) throws BusinessException {
+    private void doRateBooking(String studentId, String bookingId, int rating) throws BusinessException {
         Booking booking = db.findBookingById(bookingId);
         if (booking == null) {
             throw new BusinessException("预约不存在");
@@ -141,20 +184,16 @@ public class BookingService {
             throw new BusinessException("无权对该预约评分");
         }
 
-        // 检查状态
-        if (booking.getState() != BookingState.COMPLETED) {
-            throw new BusinessException("只能对已完成的预约进行评分");
-        }
-
-        booking.setRating(rating);
-        db.saveToFile();
-    }
+        while (true) {
+            long version = booking.getVersion();
+            // 检查状态
+            if (booking.getState() != BookingState.COMPLETED) {
+                throw new BusinessException("只能对已完成的预约进行评分");
+            }
 
-    /**
-     * 获取所有预约
-     */
-    public Booking[] getAllBookings() {
-        return db.getBookings();
+            if (db.compareAndSetBookingRating(booking, BookingState.COMPLETED, version, rating)) {
+                return;
+            }
+        }
     }
 }
-
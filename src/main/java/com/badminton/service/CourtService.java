@@ -1,5 +1,7 @@
 package com.badminton.service;
 
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.ServiceMetrics;
 import com.badminton.model.Court;
 import com.badminton.model.CourtStatus;
 import com.badminton.model.CourtType;
@@ -7,76 +9,61 @@ import com.badminton.model.TimeSlot;
 import com.badminton.persistence.JsonDB;
 import com.badminton.util.BusinessException;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 场地服务类
  */
 public class CourtService {
+    private static final ServiceMetrics METRICS = Metrics.forService(CourtService.class);
+
     private JsonDB db;
-    private BookingService bookingService;
 
-    public CourtService(JsonDB db, BookingService bookingService) {
+    public CourtService(JsonDB db) {
         this.db = db;
-        this.bookingService = bookingService;
     }
 
     /**
      * 列出指定时段可用的场地
      */
     public List<Court> listAvailableCourts(TimeSlot slot, CourtType type) {
-        List<Court> availableCourts = new ArrayList<>();
-        Court[] courts = db.getCourts();
-
-        for (int i = 0; i < db.getCourtCount(); i++) {
-            Court court = courts[i];
-            if (court == null) continue;
-
-            // 检查场地类型
-            if (type != null && court.getType() != type) {
-                continue;
-            }
-
-            // 检查场地状态
-            if (court.getStatus() != CourtStatus.AVAILABLE) {
-                continue;
-            }
-
-            // 检查是否有冲突
-            if (!bookingService.isConflict(court.getCourtId(), slot)) {
-                availableCourts.add(court);
-            }
-        }
-
-        return availableCourts;
+        // 一次遍历场地，每个场地只做一次占用位图的掩码运算
+        return METRICS.get("listAvailableCourts", () -> db.findFreeCourts(slot, type));
     }
 
     /**
      * 更改场地状态
      */
     public void changeCourtStatus(String courtId, CourtStatus status) throws BusinessException {
-        Court court = db.findCourtById(courtId);
-        if (court == null) {
-            throw new BusinessException("场地不存在");
-        }
-
-        court.setStatus(status);
-        db.saveToFile();
+        METRICS.run("changeCourtStatus", () -> doChangeCourtStatus(courtId, status));
     }
 
     /**
-     * 获取所有场地
+     * 获取所有场地（只读视图，不复制）
      */
-    public Court[] getAllCourts() {
-        return db.getCourts();
+    public List<Court> getAllCourts() {
+        return METRICS.get("getAllCourts", () -> db.getCourtView());
     }
 
     /**
      * 根据ID获取场地
      */
     public Court getCourtById(String courtId) {
-        return db.findCourtById(courtId);
+        return METRICS.get("getCourtById", () -> db.findCourtById(courtId));
     }
-}
 
+    private void doChangeCourtStatus(String courtId, CourtStatus status) throws BusinessException {
+        Court court = db.findCourtById(courtId);
+        if (court == null) {
+            throw new BusinessException("场地不存在");
+        }
+
+        // 每次修改都基于最新的版本号，日志重放时据此保持修改的先后顺序
+        while (true) {
+            long version = court.getVersion();
+            if (db.compareAndSetCourtStatus(court, court.getStatus(), version, status)) {
+                return;
+            }
+        }
+    }
+}
@@ -1,78 +1,100 @@
 package com.badminton.service;
 
+import com.badminton.metrics.FlightEvents;
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.OperationMetrics;
+import com.badminton.metrics.ReportEvent;
+import com.badminton.metrics.ServiceMetrics;
 import com.badminton.model.Booking;
 import com.badminton.model.BookingState;
 import com.badminton.model.Court;
+import com.badminton.model.CourtStatus;
+import com.badminton.model.CourtType;
+import com.badminton.persistence.CourtRatingIndex;
 import com.badminton.persistence.JsonDB;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * 统计服务类
+ * 统计都读取存储层增量维护的汇总，与历史预约总数无关：
+ * 按时间段的预约数和收入来自收入汇总（RevenueCube，区间查询 O(log 天数)），
+ * 评分统计来自评分汇总（CourtRatingIndex）。
+ * 汇总无法回答的即席报表（任意过滤条件）扫描预约快照，可选择顺序或并行执行（见 buildReport）；
+ * 场地使用率报表同样遍历一次预约快照（见 utilizationReport）。
  */
 public class StatisticsService {
+    /**
+     * 即席报表的执行方式，两种方式的结果完全相同
+     */
+    public enum ExecutionMode {
+        /** 在调用线程中顺序扫描 */
+        SEQUENTIAL,
+        /** 将快照分段后在 ForkJoinPool 上并行累加再合并 */
+        PARALLEL
+    }
+
+    private static final ServiceMetrics METRICS = Metrics.forService(StatisticsService.class);
+
     private JsonDB db;
+    private volatile ExecutionMode executionMode = ExecutionMode.SEQUENTIAL;
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
 
     public StatisticsService(JsonDB db) {
         this.db = db;
     }
 
     /**
-     * 计算每个场地的平均评分
-     * @return Map<场地ID, 平均评分>
+     * 设置即席报表的默认执行方式（默认顺序执行）
      */
-    public Map<String, Double> computeCourtRatings() {
-        Map<String, Integer> ratingSums = new HashMap<>();
-        Map<String, Integer> ratingCounts = new HashMap<>();
-        Map<String, Double> result = new HashMap<>();
-
-        Booking[] bookings = db.getBookings();
-
-        for (int i = 0; i < db.getBookingCount(); i++) {
-            Booking booking = bookings[i];
-            if (booking == null) continue;
-
-            String courtId = booking.getCourtId();
-            int rating = booking.getRating();
-
-            // 只统计已评分的预约（rating > 0）
-            if (rating > 0) {
-                ratingSums.put(courtId, ratingSums.getOrDefault(courtId, 0) + rating);
-                ratingCounts.put(courtId, ratingCounts.getOrDefault(courtId, 0) + 1);
-            }
+    public void setExecutionMode(ExecutionMode executionMode) {
+        if (executionMode == null) {
+            throw new IllegalArgumentException("executionMode不能为空");
         }
+        this.executionMode = executionMode;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
 
-        // 计算平均分
-        for (String courtId : ratingSums.keySet()) {
-            int sum = ratingSums.get(courtId);
-            int count = ratingCounts.get(courtId);
-            result.put(courtId, count > 0 ? (double) sum / count : 0.0);
+    /**
+     * 设置并行执行使用的线程池（默认 ForkJoinPool.commonPool()）
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("pool不能为空");
         }
+        this.pool = pool;
+    }
 
-        return result;
+    /**
+     * 计算每个场地的平均评分
+     * 直接读取存储层增量维护的评分汇总，与历史预约总数无关
+     * @return Map<场地ID, 平均评分>
+     */
+    public Map<String, Double> computeCourtRatings() {
+        return report("computeCourtRatings", null, null, null, 0, this::doComputeCourtRatings);
     }
 
     /**
      * 统计指定时间段的预约数量
      */
     public int bookingCountsByPeriod(LocalDate startDate, LocalDate endDate) {
-        int count = 0;
-        Booking[] bookings = db.getBookings();
-
-        for (int i = 0; i < db.getBookingCount(); i++) {
-            Booking booking = bookings[i];
-            if (booking == null) continue;
-
-            LocalDate bookingDate = booking.getSlot().getDate();
-            if (!bookingDate.isBefore(startDate) && !bookingDate.isAfter(endDate)) {
-                count++;
-            }
-        }
-
-        return count;
+        return report("bookingCountsByPeriod", startDate, endDate, null, 0, () -> (int) db.getRevenueCube()
+                .query(null, startDate.toEpochDay(), endDate.toEpochDay()).getCount());
     }
 
     /**
@@ -82,60 +104,151 @@ public class StatisticsService {
      * @return 总收入
      */
     public double earningsReport(LocalDate startDate, LocalDate endDate) {
-        double totalEarnings = 0.0;
-        Booking[] bookings = db.getBookings();
-
-        for (int i = 0; i < db.getBookingCount(); i++) {
-            Booking booking = bookings[i];
-            if (booking == null) continue;
-
-            // 只统计已完成的预约
-            if (booking.getState() != BookingState.COMPLETED) {
-                continue;
-            }
+        // 只统计已完成的预约
+        return report("earningsReport", startDate, endDate, null, 0, () -> db.getRevenueCube()
+                .query(BookingState.COMPLETED, startDate.toEpochDay(), endDate.toEpochDay()).getRevenue());
+    }
 
-            LocalDate bookingDate = booking.getSlot().getDate();
-            if (!bookingDate.isBefore(startDate) && !bookingDate.isAfter(endDate)) {
-                totalEarnings += booking.getFee();
-            }
-        }
+    /**
+     * 按场地统计指定时间段的收入（已完成的预约）
+     * @return Map<场地ID, 收入>，包含所有场地
+     */
+    public Map<String, Double> earningsByCourt(LocalDate startDate, LocalDate endDate) {
+        return report("earningsByCourt", startDate, endDate, null, 0, () -> doEarningsByCourt(startDate, endDate));
+    }
 
-        return totalEarnings;
+    /**
+     * 按场地类型统计指定时间段的收入（已完成的预约）
+     */
+    public Map<CourtType, Double> earningsByType(LocalDate startDate, LocalDate endDate) {
+        return report("earningsByType", startDate, endDate, null, 0, () -> doEarningsByType(startDate, endDate));
     }
 
     /**
      * 获取所有场地的评分统计（包含场地名称）
      */
     public Map<String, Map<String, Object>> getCourtRatingStatistics() {
-        Map<String, Double> ratings = computeCourtRatings();
+        return report("getCourtRatingStatistics", null, null, null, 0, this::doGetCourtRatingStatistics);
+    }
+
+    /**
+     * 即席报表：按默认执行方式扫描预约快照，按场地统计指定时间段内符合条件的预约
+     * @param filter 额外的过滤条件（如按学生、时段），为 null 表示不过滤
+     */
+    public BookingReport buildReport(LocalDate startDate, LocalDate endDate, Predicate<Booking> filter) {
+        return buildReport(startDate, endDate, filter, executionMode);
+    }
+
+    /**
+     * 即席报表：以指定方式扫描预约快照
+     * 预约集合取自同一个快照，报表包含当前所有场地；其余场地的预约只计入合计
+     */
+    public BookingReport buildReport(LocalDate startDate, LocalDate endDate, Predicate<Booking> filter,
+                                     ExecutionMode mode) {
+        List<Booking> bookings = db.getBookingSnapshot();
+        return report("buildReport", startDate, endDate, mode, bookings.size(), () -> BookingReport.build(bookings,
+                currentCourtIds(), startDate.toEpochDay(), endDate.toEpochDay(), filter,
+                mode == ExecutionMode.PARALLEL ? pool : null));
+    }
+
+    /**
+     * 场地使用率报表（场地 × 星期 × 小时），遍历一次预约快照
+     * 可预约时间取存储层的营业时间，维护中的场地单独标出、不计入合计
+     * @param startDate 开始日期（含），为 null 时取最早的预约日期
+     * @param endDate 结束日期（含），为 null 时取最晚的预约日期
+     */
+    public UtilizationReport utilizationReport(LocalDate startDate, LocalDate endDate) {
+        List<Booking> bookings = db.getBookingSnapshot();
+        return report("utilizationReport", startDate, endDate, null, bookings.size(), () ->
+                UtilizationReport.build(bookings, currentCourtIds(), maintenanceCourtIds(),
+                        db.getOpenSecond(), db.getCloseSecond(), startDate, endDate));
+    }
+
+    private Map<String, Double> doComputeCourtRatings() {
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, CourtRatingIndex.Summary> entry : db.getCourtRatingSummaries().entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                result.put(entry.getKey(), entry.getValue().getAverage());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Double> doEarningsByCourt(LocalDate startDate, LocalDate endDate) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Court court : db.getCourtView()) {
+            result.put(court.getCourtId(), db.getRevenueCube().queryCourt(court.getCourtId(),
+                    BookingState.COMPLETED, startDate.toEpochDay(), endDate.toEpochDay()).getRevenue());
+        }
+        return result;
+    }
+
+    private Map<CourtType, Double> doEarningsByType(LocalDate startDate, LocalDate endDate) {
+        Map<CourtType, Double> result = new EnumMap<>(CourtType.class);
+        for (CourtType type : CourtType.values()) {
+            result.put(type, db.getRevenueCube().queryType(type,
+                    BookingState.COMPLETED, startDate.toEpochDay(), endDate.toEpochDay()).getRevenue());
+        }
+        return result;
+    }
+
+    private Map<String, Map<String, Object>> doGetCourtRatingStatistics() {
         Map<String, Map<String, Object>> result = new HashMap<>();
 
-        Court[] courts = db.getCourts();
-        for (int i = 0; i < db.getCourtCount(); i++) {
-            Court court = courts[i];
+        // 每个场地读取一次评分汇总，O(场地数)
+        for (Court court : db.getCourtView()) {
             if (court == null) continue;
 
+            CourtRatingIndex.Summary summary = db.getCourtRatingSummary(court.getCourtId());
             Map<String, Object> stats = new HashMap<>();
             stats.put("courtId", court.getCourtId());
             stats.put("type", court.getType());
-            stats.put("averageRating", ratings.getOrDefault(court.getCourtId(), 0.0));
-            
-            // 统计评分次数
-            int ratingCount = 0;
-            Booking[] bookings = db.getBookings();
-            for (int j = 0; j < db.getBookingCount(); j++) {
-                Booking booking = bookings[j];
-                if (booking != null && booking.getCourtId().equals(court.getCourtId()) 
-                    && booking.getRating() > 0) {
-                    ratingCount++;
-                }
-            }
-            stats.put("ratingCount", ratingCount);
+            stats.put("averageRating", summary.getAverage());
+            stats.put("ratingCount", (int) summary.getCount());
+            stats.put("ratingHistogram", summary.getHistogram());
 
             result.put(court.getCourtId(), stats);
         }
 
         return result;
     }
-}
 
+    /**
+     * 执行报表并记录 method 的耗时指标；正在录制 JFR 时另外发出报表事件
+     * @param mode 即席报表的执行方式，读取汇总的报表为 null
+     * @param bookingsScanned 扫描的预约数，读取汇总的报表为 0
+     */
+    private <T> T report(String method, LocalDate startDate, LocalDate endDate, ExecutionMode mode,
+                         int bookingsScanned, Supplier<T> body) {
+        OperationMetrics metrics = METRICS.of(method);
+        ReportEvent event = FlightEvents.report();
+        try {
+            return metrics.get(body);
+        } finally {
+            if (event != null) {
+                event.finish(metrics.getName(), startDate, endDate, mode != null ? mode.name() : null,
+                        bookingsScanned);
+            }
+        }
+    }
+
+    private List<String> currentCourtIds() {
+        List<String> courtIds = new ArrayList<>();
+        for (Court court : db.getCourtView()) {
+            if (court != null) {
+                courtIds.add(court.getCourtId());
+            }
+        }
+        return courtIds;
+    }
+
+    private Set<String> maintenanceCourtIds() {
+        Set<String> courtIds = new HashSet<>();
+        for (Court court : db.getCourtView()) {
+            if (court != null && court.getStatus() == CourtStatus.MAINTENANCE) {
+                courtIds.add(court.getCourtId());
+            }
+        }
+        return courtIds;
+    }
+}
@@ -1,5 +1,7 @@
 package com.badminton.service;
 
+import com.badminton.metrics.Metrics;
+import com.badminton.metrics.ServiceMetrics;
 import com.badminton.model.Student;
 import com.badminton.persistence.JsonDB;
 import com.badminton.util.BusinessException;
@@ -10,6 +12,8 @@ import java.util.regex.Pattern;
  * 用户服务类（学生注册/登录）
  */
 public class UserService {
+    private static final ServiceMetrics METRICS = Metrics.forService(UserService.class);
+
     private JsonDB db;
     private static final Pattern PHONE_PATTERN = Pattern.compile("^1[3-9]\\d{9}$");
 
@@ -21,15 +25,28 @@ public class UserService {
      * 学生注册
      */
     public void registerStudent(Student student) throws BusinessException {
+        METRICS.run("registerStudent", () -> doRegisterStudent(student));
+    }
+
+    /**
+     * 学生登录（简化：无密码）
+     */
+    public Student loginStudent(String studentId) throws BusinessException {
+        return METRICS.call("loginStudent", () -> doLoginStudent(studentId));
+    }
+
+    /**
+     * 根据学号获取学生信息
+     */
+    public Student getStudentById(String studentId) {
+        return METRICS.get("getStudentById", () -> db.findStudentById(studentId));
+    }
+
+    private void doRegisterStudent(Student student) throws BusinessException {
         if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
             throw new BusinessException("学号不能为空");
         }
 
-        // 检查学号唯一性
-        if (db.findStudentById(student.getStudentId()) != null) {
-            throw new BusinessException("该学号已注册");
-        }
-
         // 校验手机号格式
         if (student.getPhone() != null && !student.getPhone().trim().isEmpty()) {
             if (!PHONE_PATTERN.matcher(student.getPhone()).matches()) {
@@ -37,14 +54,14 @@ public class UserService {
             }
         }
 
-        db.addStudent(student);
-        db.saveToFile();
+        // 检查学号唯一性：addStudent 原子地插入，并发注册同一学号时只有一个成功
+        // addStudent 写入一条日志记录，由快照统一写入学生文件
+        if (!db.addStudent(student)) {
+            throw new BusinessException("该学号已注册");
+        }
     }
 
-    /**
-     * 学生登录（简化：无密码）
-     */
-    public Student loginStudent(String studentId) throws BusinessException {
+    private Student doLoginStudent(String studentId) throws BusinessException {
         if (studentId == null || studentId.trim().isEmpty()) {
             throw new BusinessException("学号不能为空");
         }
@@ -56,12 +73,4 @@ public class UserService {
 
         return student;
     }
-
-    /**
-     * 根据学号获取学生信息
-     */
-    public Student getStudentById(String studentId) {
-        return db.findStudentById(studentId);
-    }
 }
-
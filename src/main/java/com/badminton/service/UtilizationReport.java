@@ -0,0 +1,275 @@
+package com.badminton.service;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+import com.badminton.model.TimeSlot;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 场地使用率报表（场地 × 星期 × 小时）
+ * 使用率 = 已预约分钟数 / 可预约分钟数。可预约时间取营业时间，与冲突检测的占用位图一致
+ *（badminton.grid.open / badminton.grid.close，见 CourtDayIndex）：某星期某小时的可预约分钟数为
+ * 日期区间内该星期出现的天数 × 该小时落在营业时间内的分钟数，每个场地相同。
+ * 未取消的预约都计为占用，跨小时的预约按秒拆分到各小时。
+ * 维护中的场地仍单独列出（见 isUnderMaintenance），但不计入所有场地合计的占用和可预约时间。
+ *
+ * 只遍历一次预约快照，占用时间（秒）累加在按 (场地, 星期, 小时) 排列的 long 数组中。
+ */
+public class UtilizationReport {
+    private static final int DAYS = 7;
+    private static final int HOURS = 24;
+    private static final int HOUR_SECONDS = 3600;
+    private static final int COURT_STRIDE = DAYS * HOURS;
+
+    private final List<String> courtIds;
+    private final Map<String, Integer> courtIndex;
+    private final long[] bookedSeconds;
+    private final boolean[] maintenance; // 按场地下标，维护中的场地不计入合计
+    private final int openSecond;
+    private final int closeSecond;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final long[] weekdayCounts = new long[DAYS]; // 区间内每个星期几出现的天数
+    private final int firstHour;
+    private final int lastHour;
+
+    private UtilizationReport(List<String> courtIds, Map<String, Integer> courtIndex, long[] bookedSeconds,
+                              boolean[] maintenance, int openSecond, int closeSecond, long fromDay, long toDay) {
+        this.courtIds = courtIds;
+        this.courtIndex = courtIndex;
+        this.bookedSeconds = bookedSeconds;
+        this.maintenance = maintenance;
+        this.openSecond = openSecond;
+        this.closeSecond = closeSecond;
+        if (fromDay <= toDay) {
+            this.startDate = LocalDate.ofEpochDay(fromDay);
+            this.endDate = LocalDate.ofEpochDay(toDay);
+            long days = toDay - fromDay + 1;
+            for (int i = 0; i < DAYS; i++) {
+                weekdayCounts[weekdayOf(fromDay + i)] = days / DAYS + (i < days % DAYS ? 1 : 0);
+            }
+        } else {
+            this.startDate = null;
+            this.endDate = null;
+        }
+        int first = HOURS;
+        int last = -1;
+        for (int i = 0; i < bookedSeconds.length; i++) {
+            if (bookedSeconds[i] > 0) {
+                first = Math.min(first, i % HOURS);
+                last = Math.max(last, i % HOURS);
+            }
+        }
+        this.firstHour = first;
+        this.lastHour = last;
+    }
+
+    /**
+     * 生成报表
+     * @param bookings 预约快照
+     * @param courtIds 报表中的场地（其余场地的预约不计入）
+     * @param maintenanceCourtIds 维护中的场地，不计入合计
+     * @param openSecond 营业开始时间（当天秒数）
+     * @param closeSecond 营业结束时间（当天秒数）
+     * @param startDate 开始日期（含），为 null 时取最早的预约日期
+     * @param endDate 结束日期（含），为 null 时取最晚的预约日期
+     */
+    static UtilizationReport build(List<Booking> bookings, List<String> courtIds, Set<String> maintenanceCourtIds,
+                                   int openSecond, int closeSecond, LocalDate startDate, LocalDate endDate) {
+        Map<String, Integer> courtIndex = new LinkedHashMap<>(courtIds.size() * 2);
+        for (String courtId : courtIds) {
+            courtIndex.putIfAbsent(courtId, courtIndex.size());
+        }
+        boolean[] maintenance = new boolean[courtIndex.size()];
+        for (String courtId : maintenanceCourtIds) {
+            Integer index = courtIndex.get(courtId);
+            if (index != null) {
+                maintenance[index] = true;
+            }
+        }
+        long[] seconds = new long[courtIndex.size() * COURT_STRIDE];
+        long fromDay = startDate != null ? startDate.toEpochDay() : Long.MIN_VALUE;
+        long toDay = endDate != null ? endDate.toEpochDay() : Long.MAX_VALUE;
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+
+        for (Booking booking : bookings) {
+            TimeSlot slot = booking != null ? booking.getSlot() : null;
+            if (slot == null || !slot.isComplete() || booking.getState() == null
+                    || booking.getState() == BookingState.CANCELLED) {
+                continue;
+            }
+            long day = slot.getEpochDay();
+            Integer index = booking.getCourtId() != null ? courtIndex.get(booking.getCourtId()) : null;
+            if (day < fromDay || day > toDay || index == null) {
+                continue;
+            }
+            int start = slot.getStartSecondOfDay();
+            int end = slot.getEndSecondOfDay();
+            if (end <= start) {
+                continue;
+            }
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+            int base = index * COURT_STRIDE + weekdayOf(day) * HOURS;
+            for (int hour = start / HOUR_SECONDS; hour * HOUR_SECONDS < end; hour++) {
+                int from = Math.max(start, hour * HOUR_SECONDS);
+                int to = Math.min(end, (hour + 1) * HOUR_SECONDS);
+                seconds[base + hour] += to - from;
+            }
+        }
+
+        List<String> ids = Collections.unmodifiableList(new ArrayList<>(courtIndex.keySet()));
+        return new UtilizationReport(ids, courtIndex, seconds, maintenance, openSecond, closeSecond,
+                startDate != null ? fromDay : minDay, endDate != null ? toDay : maxDay);
+    }
+
+    /**
+     * 星期一为 0（epochDay 0 即 1970-01-01 是星期四）
+     */
+    private static int weekdayOf(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, (long) DAYS);
+    }
+
+    public List<String> getCourtIds() {
+        return courtIds;
+    }
+
+    /**
+     * 场地是否维护中（维护中的场地不计入所有场地合计）
+     */
+    public boolean isUnderMaintenance(String courtId) {
+        Integer index = courtIndex.get(courtId);
+        return index != null && maintenance[index];
+    }
+
+    /**
+     * 统计的开始日期，区间内没有预约且未指定日期时为 null
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * 有占用的最早小时（0-23），没有任何占用时为 24
+     */
+    public int getFirstHour() {
+        return firstHour;
+    }
+
+    /**
+     * 有占用的最晚小时（0-23），没有任何占用时为 -1
+     */
+    public int getLastHour() {
+        return lastHour;
+    }
+
+    /**
+     * 单个场地在某星期某小时的可预约分钟数
+     */
+    public long getAvailableMinutes(DayOfWeek dayOfWeek, int hour) {
+        checkHour(hour);
+        return weekdayCounts[dayOfWeek.ordinal()] * openSecondsIn(hour) / 60;
+    }
+
+    /**
+     * 某小时落在营业时间内的秒数
+     */
+    private int openSecondsIn(int hour) {
+        int from = Math.max(openSecond, hour * HOUR_SECONDS);
+        int to = Math.min(closeSecond, (hour + 1) * HOUR_SECONDS);
+        return Math.max(0, to - from);
+    }
+
+    /**
+     * 已预约分钟数
+     * @param courtId 场地编号，为 null 表示所有未维护场地之和
+     */
+    public double getBookedMinutes(String courtId, DayOfWeek dayOfWeek, int hour) {
+        checkHour(hour);
+        int offset = dayOfWeek.ordinal() * HOURS + hour;
+        long total = 0;
+        if (courtId == null) {
+            for (int i = 0; i < maintenance.length; i++) {
+                if (!maintenance[i]) {
+                    total += bookedSeconds[i * COURT_STRIDE + offset];
+                }
+            }
+        } else {
+            Integer index = courtIndex.get(courtId);
+            if (index != null) {
+                total = bookedSeconds[index * COURT_STRIDE + offset];
+            }
+        }
+        return total / 60.0;
+    }
+
+    /**
+     * 某星期某小时的使用率（0-1），该小时不在营业时间内时为 0
+     * @param courtId 场地编号，为 null 表示所有未维护场地合计
+     */
+    public double getUtilization(String courtId, DayOfWeek dayOfWeek, int hour) {
+        long available = getAvailableMinutes(dayOfWeek, hour) * courtCount(courtId);
+        return available > 0 ? getBookedMinutes(courtId, dayOfWeek, hour) / available : 0.0;
+    }
+
+    /**
+     * 整个区间的使用率（0-1），可预约时间按每天的营业时间计
+     * @param courtId 场地编号，为 null 表示所有未维护场地合计
+     */
+    public double getUtilization(String courtId) {
+        long days = 0;
+        for (long count : weekdayCounts) {
+            days += count;
+        }
+        long availableSeconds = days * (closeSecond - openSecond) * courtCount(courtId);
+        if (availableSeconds <= 0) {
+            return 0.0;
+        }
+        long booked = 0;
+        if (courtId == null) {
+            for (int i = 0; i < bookedSeconds.length; i++) {
+                if (!maintenance[i / COURT_STRIDE]) {
+                    booked += bookedSeconds[i];
+                }
+            }
+        } else {
+            Integer index = courtIndex.get(courtId);
+            for (int i = 0; index != null && i < COURT_STRIDE; i++) {
+                booked += bookedSeconds[index * COURT_STRIDE + i];
+            }
+        }
+        return (double) booked / availableSeconds;
+    }
+
+    private int courtCount(String courtId) {
+        if (courtId == null) {
+            int count = 0;
+            for (boolean underMaintenance : maintenance) {
+                if (!underMaintenance) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return courtIndex.containsKey(courtId) ? 1 : 0;
+    }
+
+    private static void checkHour(int hour) {
+        if (hour < 0 || hour >= HOURS) {
+            throw new IllegalArgumentException("hour必须在0-23之间：" + hour);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.badminton.tools;
+
+import com.badminton.model.*;
+import com.badminton.persistence.AtomicFiles;
+import com.badminton.persistence.InMemoryDB;
+import com.badminton.persistence.JsonArrayWriter;
+import com.badminton.util.DefaultFeePolicy;
+import com.badminton.util.FeePolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+/**
+ * 学期规模的模拟数据生成器
+ * 为 N 个学生、M 个场地生成若干周的预约历史，写入 students.json、admins.json、courts.json、bookings.json
+ * （格式与 JsonDB 快照相同，可直接作为数据目录加载），可选同时写入 InMemoryDB 的 data.db。
+ *
+ * 按 日期 → 场地 → 整点 依次决定每个时段是否被预约：基础预约率为 occupancy，高峰时段（工作日
+ * peak-start 至 peak-end 点，以及周末全天）乘以 peak-skew；每个预约以 long-rate 的概率持续两小时。
+ * 预约以 cancel-rate 的概率被取消，被取消的时段可以再被预约。生成日期之前的预约为已完成，
+ * 其中 rating-rate 比例的预约按 rating-weights（1-5 分的权重）评分；之后的预约为待确认。
+ *
+ * JSON 文件逐条生成、逐条写出，内存占用与预约数无关；data.db 是 Java 序列化的整个 InMemoryDB，
+ * 需要在内存中构建，只适合中小规模的数据。相同参数和随机种子生成的数据相同。
+ *
+ * 用法：java -cp target/classes com.badminton.tools.DatasetGenerator 输出目录 [--选项=值 ...]
+ * 选项：students（默认 1000）、courts（8）、weeks（18）、start（2025-09-01）、open（8）、close（22）、
+ * occupancy（0.3）、peak-start（18）、peak-end（22）、peak-skew（2.5）、long-rate（0.2）、
+ * cancel-rate（0.1）、rating-rate（0.5）、rating-weights（1,2,5,12,10）、today（今天）、seed（42）、
+ * inmemory（false，为 true 时同时写入 data.db）
+ */
+public class DatasetGenerator {
+    private final File outputDir;
+    private int students = 1000;
+    private int courts = 8;
+    private int weeks = 18;
+    private LocalDate start = LocalDate.of(2025, 9, 1);
+    private int openHour = 8;
+    private int closeHour = 22;
+    private double occupancy = 0.3;
+    private int peakStart = 18;
+    private int peakEnd = 22;
+    private double peakSkew = 2.5;
+    private double longRate = 0.2;
+    private double cancelRate = 0.1;
+    private double ratingRate = 0.5;
+    private double[] ratingWeights = {1, 2, 5, 12, 10};
+    private LocalDate today = LocalDate.now();
+    private long seed = 42;
+    private boolean inMemory;
+    private double ratingTotal;
+    private Student[] memoryStudents; // 写入 data.db 时预约引用同一批学生对象
+
+    private final FeePolicy feePolicy = new DefaultFeePolicy();
+
+    public DatasetGenerator(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.err.println("用法：DatasetGenerator 输出目录 [--students=1000] [--courts=8] [--weeks=18] ...");
+            System.exit(2);
+        }
+        DatasetGenerator generator = new DatasetGenerator(new File(args[0]));
+        try {
+            for (int i = 1; i < args.length; i++) {
+                generator.option(args[i]);
+            }
+            generator.validate();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("参数错误：" + e.getMessage());
+            System.exit(2);
+        }
+        try {
+            generator.generate();
+        } catch (IOException e) {
+            System.err.println("生成数据失败: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 解析一个 --名称=值 形式的选项
+     */
+    void option(String arg) {
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+            throw new IllegalArgumentException("选项格式应为 --名称=值：" + arg);
+        }
+        String name = arg.substring(2, eq);
+        String value = arg.substring(eq + 1);
+        switch (name) {
+            case "students": students = Integer.parseInt(value); break;
+            case "courts": courts = Integer.parseInt(value); break;
+            case "weeks": weeks = Integer.parseInt(value); break;
+            case "start": start = LocalDate.parse(value); break;
+            case "open": openHour = Integer.parseInt(value); break;
+            case "close": closeHour = Integer.parseInt(value); break;
+            case "occupancy": occupancy = Double.parseDouble(value); break;
+            case "peak-start": peakStart = Integer.parseInt(value); break;
+            case "peak-end": peakEnd = Integer.parseInt(value); break;
+            case "peak-skew": peakSkew = Double.parseDouble(value); break;
+            case "long-rate": longRate = Double.parseDouble(value); break;
+            case "cancel-rate": cancelRate = Double.parseDouble(value); break;
+            case "rating-rate": ratingRate = Double.parseDouble(value); break;
+            case "rating-weights": ratingWeights = parseWeights(value); break;
+            case "today": today = LocalDate.parse(value); break;
+            case "seed": seed = Long.parseLong(value); break;
+            case "inmemory": inMemory = Boolean.parseBoolean(value); break;
+            default:
+                throw new IllegalArgumentException("未知选项：" + name);
+        }
+    }
+
+    private static double[] parseWeights(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("rating-weights 需要 5 个权重（1-5 分）");
+        }
+        double[] weights = new double[5];
+        for (int i = 0; i < 5; i++) {
+            weights[i] = Double.parseDouble(parts[i].trim());
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("rating-weights 不能为负数");
+            }
+        }
+        return weights;
+    }
+
+    void validate() {
+        if (students <= 0 || courts <= 0 || weeks <= 0) {
+            throw new IllegalArgumentException("students、courts、weeks 必须为正数");
+        }
+        // 预约结束时间不能为 24:00
+        if (openHour < 0 || closeHour > 23 || openHour >= closeHour) {
+            throw new IllegalArgumentException("营业时间应满足 0 <= open < close <= 23");
+        }
+        checkRate("occupancy", occupancy);
+        checkRate("long-rate", longRate);
+        checkRate("cancel-rate", cancelRate);
+        checkRate("rating-rate", ratingRate);
+        if (peakSkew < 0) {
+            throw new IllegalArgumentException("peak-skew 不能为负数");
+        }
+        ratingTotal = 0;
+        for (double weight : ratingWeights) {
+            ratingTotal += weight;
+        }
+        if (ratingTotal <= 0) {
+            throw new IllegalArgumentException("rating-weights 之和必须为正数");
+        }
+    }
+
+    private static void checkRate(String name, double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " 应在 0 到 1 之间");
+        }
+    }
+
+    /**
+     * 生成全部文件
+     */
+    public void generate() throws IOException {
+        validate();
+        if (!outputDir.exists() && !outputDir.mkdirs()) {
+            throw new IOException("无法创建目录：" + outputDir);
+        }
+        long begin = System.currentTimeMillis();
+        InMemoryDB memoryDB = inMemory ? new InMemoryDB() : null;
+
+        Admin admin = new Admin("admin", "管理员", "13800000000", "admin123");
+        AtomicFiles.write(new File(outputDir, "admins.json"), out -> {
+            JsonArrayWriter<Admin> writer = JsonArrayWriter.admins(out);
+            writer.write(admin);
+            writer.finish();
+        });
+        Court[] courtArray = new Court[courts];
+        CourtType[] types = CourtType.values();
+        for (int i = 0; i < courts; i++) {
+            courtArray[i] = new Court(String.format("C%03d", i + 1), types[i % types.length],
+                    CourtStatus.AVAILABLE, 5.0);
+        }
+        AtomicFiles.write(new File(outputDir, "courts.json"), out -> {
+            JsonArrayWriter<Court> writer = JsonArrayWriter.courts(out);
+            for (Court court : courtArray) {
+                writer.write(court);
+            }
+            writer.finish();
+        });
+        AtomicFiles.write(new File(outputDir, "students.json"), out -> {
+            JsonArrayWriter<Student> writer = JsonArrayWriter.students(out);
+            for (int i = 0; i < students; i++) {
+                writer.write(student(i));
+            }
+            writer.finish();
+        });
+        if (memoryDB != null) {
+            memoryDB.addAdmin(admin);
+            for (Court court : courtArray) {
+                memoryDB.addCourt(court);
+            }
+            memoryStudents = new Student[students];
+            for (int i = 0; i < students; i++) {
+                memoryStudents[i] = student(i);
+                memoryDB.addStudent(memoryStudents[i]);
+            }
+        }
+
+        long[] counts = new long[BookingState.values().length];
+        long[] bytes = new long[1];
+        AtomicFiles.write(new File(outputDir, "bookings.json"), out -> {
+            JsonArrayWriter<Booking> writer = JsonArrayWriter.bookings(out);
+            generateBookings(courtArray, booking -> {
+                writer.write(booking);
+                counts[booking.getState().ordinal()]++;
+                if (memoryDB != null) {
+                    memoryDB.addBooking(booking);
+                }
+            });
+            writer.finish();
+            bytes[0] = writer.getBytesWritten();
+        });
+        if (memoryDB != null) {
+            memoryDB.saveToFile(new File(outputDir, "data.db"));
+        }
+
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        System.out.println("数据生成完成：" + outputDir.getPath());
+        System.out.println("  学生 " + students + " 名，场地 " + courts + " 个，" + weeks + " 周（"
+                + start + " 起）");
+        System.out.println("  预约 " + total + " 条（已完成 " + counts[BookingState.COMPLETED.ordinal()]
+                + "，待确认 " + counts[BookingState.PENDING.ordinal()]
+                + "，已取消 " + counts[BookingState.CANCELLED.ordinal()] + "），bookings.json "
+                + (bytes[0] / 1024) + " KB");
+        System.out.println("  耗时 " + (System.currentTimeMillis() - begin) + " ms");
+    }
+
+    /**
+     * 接收生成的预约
+     */
+    private interface BookingSink {
+        void accept(Booking booking) throws IOException;
+    }
+
+    private void generateBookings(Court[] courtArray, BookingSink sink) throws IOException {
+        Random random = new Random(seed);
+        long sequence = 0;
+        LocalDate end = start.plusWeeks(weeks);
+        for (LocalDate date = start; date.isBefore(end); date = date.plusDays(1)) {
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+            for (Court court : courtArray) {
+                int hour = openHour;
+                while (hour < closeHour) {
+                    boolean peak = weekend || (hour >= peakStart && hour < peakEnd);
+                    double p = Math.min(1.0, peak ? occupancy * peakSkew : occupancy);
+                    int length = random.nextDouble() < longRate && hour + 2 <= closeHour ? 2 : 1;
+                    if (random.nextDouble() >= p) {
+                        hour++;
+                        continue;
+                    }
+                    TimeSlot slot = new TimeSlot(date, LocalTime.of(hour, 0), LocalTime.of(hour + length, 0));
+                    // 被取消的时段可以再被预约（再抽一次）
+                    boolean cancelled;
+                    do {
+                        cancelled = random.nextDouble() < cancelRate;
+                        sink.accept(booking(sequence++, court, slot, cancelled, random));
+                    } while (cancelled && random.nextDouble() < p);
+                    hour += length;
+                }
+            }
+        }
+    }
+
+    private Booking booking(long sequence, Court court, TimeSlot slot, boolean cancelled, Random random) {
+        BookingState state;
+        int rating = 0;
+        if (cancelled) {
+            state = BookingState.CANCELLED;
+        } else if (slot.getDate().isBefore(today)) {
+            state = BookingState.COMPLETED;
+            if (random.nextDouble() < ratingRate) {
+                rating = pickRating(random);
+            }
+        } else {
+            state = BookingState.PENDING;
+        }
+        // 提前 0-7 天下单
+        LocalDateTime createdAt = slot.getDate().atTime(slot.getStart())
+                .minusMinutes(30 + random.nextInt(7 * 24 * 60));
+        int studentIndex = random.nextInt(students);
+        Student student = memoryStudents != null ? memoryStudents[studentIndex] : student(studentIndex);
+        return new Booking(String.format("BK%08X", sequence), student,
+                court.getCourtId(), slot, state, feePolicy.computeFee(court.getType(), slot), rating, createdAt);
+    }
+
+    private int pickRating(Random random) {
+        double r = random.nextDouble() * ratingTotal;
+        for (int i = 0; i < ratingWeights.length; i++) {
+            r -= ratingWeights[i];
+            if (r < 0) {
+                return i + 1;
+            }
+        }
+        return ratingWeights.length;
+    }
+
+    /**
+     * 第 index 个学生（按序号确定，无需保存全部学生）
+     */
+    private static Student student(int index) {
+        return new Student(String.format("S%07d", index + 1), "学生" + (index + 1),
+                String.format("138%08d", index));
+    }
+}
@@ -0,0 +1,632 @@
+package com.badminton.tools;
+
+import com.badminton.model.*;
+import com.badminton.persistence.DurabilityMode;
+import com.badminton.persistence.JsonDB;
+import com.badminton.service.AdminService;
+import com.badminton.service.BookingService;
+import com.badminton.service.CourtService;
+import com.badminton.service.StatisticsService;
+import com.badminton.service.UserService;
+import com.badminton.util.BusinessException;
+import com.badminton.util.DefaultFeePolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * 多线程负载模拟
+ * 在 JsonDB 上构建 UserService、BookingService、CourtService、AdminService 和 StatisticsService，
+ * 由多个学生会话和管理员会话并发调用服务层，模拟选课日式的集中预约：
+ * 学生会话登录后按比例查询可用场地、预约（在查询到的空闲场地中选一个）、查看并取消自己的预约、
+ * 对已完成的预约评分；管理员会话确认明天的预约完成、临时把场地改为维护中再改回、运行统计报表。
+ * 结束后输出每种操作的次数、吞吐量、p50/p99/最大延迟，以及重复预约（同一场地同一天重叠的未取消预约）数。
+ *
+ * 数据来自 --data 指定的目录（复制到临时目录后使用，不修改原数据），未指定时用 DatasetGenerator
+ * 按 --students、--courts、--weeks 生成；预约集中在今天之后的 --window-days 天内。
+ *
+ * 用法：java -cp target/classes com.badminton.tools.LoadSimulator [--选项=值 ...]
+ * 选项：data、students（2000）、courts（8）、weeks（18）、student-sessions（16）、admin-sessions（2）、
+ * duration（30 秒）、warmup（5 秒，不计入结果）、session-length（10，每次登录后的操作数）、
+ * mix（browse:50,book:25,cancel:10,rate:15）、admin-mix（confirm:70,status:10,report:20）、
+ * window-days（14）、think（0 毫秒）、durability（ASYNC）、seed（1）
+ * 出现重复预约或非业务异常时以退出码 1 结束。
+ */
+public class LoadSimulator {
+    /**
+     * 计时的操作
+     */
+    enum Op {
+        LOGIN("登录"),
+        BROWSE("查询可用场地"),
+        BOOK("预约"),
+        MY_BOOKINGS("查看我的预约"),
+        CANCEL("取消预约"),
+        RATE("评分"),
+        ADMIN_LOGIN("管理员登录"),
+        CONFIRM("确认完成"),
+        COURT_STATUS("更改场地状态"),
+        REPORT("统计报表");
+
+        final String label;
+
+        Op(String label) {
+            this.label = label;
+        }
+    }
+
+    private String dataSource;
+    private int students = 2000;
+    private int courts = 8;
+    private int weeks = 18;
+    private int studentSessions = 16;
+    private int adminSessions = 2;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private int sessionLength = 10;
+    private int[] studentMix = {50, 25, 10, 15}; // browse, book, cancel, rate
+    private int[] adminMix = {70, 10, 20}; // confirm, status, report
+    private int windowDays = 14;
+    private int thinkMillis;
+    private DurabilityMode durability = DurabilityMode.ASYNC;
+    private long seed = 1;
+
+    private JsonDB db;
+    private UserService userService;
+    private AdminService adminService;
+    private BookingService bookingService;
+    private CourtService courtService;
+    private StatisticsService statisticsService;
+    private String[] studentIds;
+    private String[] courtIds;
+    private String adminId;
+    private String adminPassword;
+    private LocalDate firstDay;
+    // 学生会话新建的、窗口第一天（明天）的预约，供管理员会话确认完成；其余日期的预约保持待确认，可被取消
+    private final ConcurrentLinkedQueue<String> recentBookings = new ConcurrentLinkedQueue<>();
+
+    private volatile long recordFrom; // 预热结束时间（System.nanoTime）
+    private volatile long deadline;
+
+    public static void main(String[] args) throws Exception {
+        LoadSimulator simulator = new LoadSimulator();
+        try {
+            for (String arg : args) {
+                simulator.option(arg);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("参数错误：" + e.getMessage());
+            System.exit(2);
+        }
+
+        Path dataDir = Files.createTempDirectory("badminton-load");
+        boolean ok;
+        try {
+            ok = simulator.run(dataDir.toFile());
+        } finally {
+            deleteRecursively(dataDir);
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private void option(String arg) {
+        int eq = arg.indexOf('=');
+        if (!arg.startsWith("--") || eq < 0) {
+            throw new IllegalArgumentException("选项格式应为 --名称=值：" + arg);
+        }
+        String name = arg.substring(2, eq);
+        String value = arg.substring(eq + 1);
+        switch (name) {
+            case "data": dataSource = value; break;
+            case "students": students = positive(name, value); break;
+            case "courts": courts = positive(name, value); break;
+            case "weeks": weeks = positive(name, value); break;
+            case "student-sessions": studentSessions = Integer.parseInt(value); break;
+            case "admin-sessions": adminSessions = Integer.parseInt(value); break;
+            case "duration": durationSeconds = positive(name, value); break;
+            case "warmup": warmupSeconds = Integer.parseInt(value); break;
+            case "session-length": sessionLength = positive(name, value); break;
+            case "mix": studentMix = parseMix(value, "browse", "book", "cancel", "rate"); break;
+            case "admin-mix": adminMix = parseMix(value, "confirm", "status", "report"); break;
+            case "window-days": windowDays = positive(name, value); break;
+            case "think": thinkMillis = Integer.parseInt(value); break;
+            case "durability": durability = DurabilityMode.valueOf(value.toUpperCase()); break;
+            case "seed": seed = Long.parseLong(value); break;
+            default:
+                throw new IllegalArgumentException("未知选项：" + name);
+        }
+        if (studentSessions < 0 || adminSessions < 0 || studentSessions + adminSessions == 0) {
+            throw new IllegalArgumentException("至少需要一个会话");
+        }
+    }
+
+    private static int positive(String name, String value) {
+        int n = Integer.parseInt(value);
+        if (n <= 0) {
+            throw new IllegalArgumentException(name + " 必须为正数");
+        }
+        return n;
+    }
+
+    /**
+     * 解析 名称:权重,... 形式的操作比例，未列出的操作权重为 0
+     */
+    private static int[] parseMix(String value, String... names) {
+        int[] weights = new int[names.length];
+        for (String part : value.split(",")) {
+            String[] kv = part.trim().split(":");
+            int index = Arrays.asList(names).indexOf(kv[0].trim());
+            if (kv.length != 2 || index < 0) {
+                throw new IllegalArgumentException("操作比例格式应为 " + String.join(":n,", names) + ":n");
+            }
+            weights[index] = Integer.parseInt(kv[1].trim());
+            if (weights[index] < 0) {
+                throw new IllegalArgumentException("操作比例不能为负数");
+            }
+        }
+        if (Arrays.stream(weights).sum() == 0) {
+            throw new IllegalArgumentException("操作比例之和必须为正数");
+        }
+        return weights;
+    }
+
+    private boolean run(File dataDir) throws Exception {
+        prepareData(dataDir);
+        db = JsonDB.loadFromFile(dataDir.getPath());
+        db.setDurabilityMode(durability, 20);
+        userService = new UserService(db);
+        adminService = new AdminService(db);
+        bookingService = new BookingService(db, new DefaultFeePolicy());
+        courtService = new CourtService(db);
+        statisticsService = new StatisticsService(db);
+
+        List<String> ids = new ArrayList<>();
+        for (Student student : db.getStudentView()) {
+            ids.add(student.getStudentId());
+        }
+        studentIds = ids.toArray(new String[0]);
+        ids.clear();
+        for (Court court : db.getCourtView()) {
+            ids.add(court.getCourtId());
+        }
+        courtIds = ids.toArray(new String[0]);
+        if (studentIds.length == 0 || courtIds.length == 0) {
+            System.err.println("数据中没有学生或场地");
+            return false;
+        }
+        if (db.getAdminCount() == 0) {
+            db.addAdmin(new Admin("admin", "管理员", "13800000000", "admin123"));
+        }
+        Admin admin = db.getAdminView().get(0);
+        adminId = admin.getAdminId();
+        adminPassword = admin.getPassword();
+        firstDay = LocalDate.now().plusDays(1);
+
+        System.out.println("负载模拟：学生会话 " + studentSessions + "，管理员会话 " + adminSessions
+                + "，预热 " + warmupSeconds + " 秒，运行 " + durationSeconds + " 秒，日志模式 " + durability);
+        int initialBookings = db.getBookingCount();
+
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < studentSessions; i++) {
+            sessions.add(new StudentSession(new Random(seed * 1000 + i)));
+        }
+        for (int i = 0; i < adminSessions; i++) {
+            sessions.add(new AdminSession(new Random(seed * 1000 + 500 + i)));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            Session session = sessions.get(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    session.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "load-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        recordFrom = begin + warmupSeconds * 1_000_000_000L;
+        deadline = recordFrom + durationSeconds * 1_000_000_000L;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - recordFrom) / 1e9;
+        db.close(); // 写完剩余日志并停止日志线程，之后只读取统计
+
+        Stats total = new Stats();
+        for (Session session : sessions) {
+            total.merge(session.stats);
+        }
+        total.print(seconds);
+        System.out.println("预约数：" + initialBookings + " -> " + db.getBookingCount());
+
+        int duplicates = countDuplicates(db.getBookingSnapshot());
+        System.out.println("重复预约：" + duplicates + " 处");
+        boolean ok = duplicates == 0 && total.errorCount() == 0;
+        System.out.println(ok ? "模拟完成，未发现问题" : "模拟发现问题");
+        return ok;
+    }
+
+    private void prepareData(File dataDir) throws IOException {
+        if (dataSource != null) {
+            File source = new File(dataSource);
+            for (String name : new String[]{"students.json", "admins.json", "courts.json", "bookings.json",
+                    "journal.log", "journal.log.1"}) {
+                File file = new File(source, name);
+                if (file.exists()) {
+                    Files.copy(file.toPath(), new File(dataDir, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } else {
+            DatasetGenerator generator = new DatasetGenerator(dataDir);
+            generator.option("--students=" + students);
+            generator.option("--courts=" + courts);
+            generator.option("--weeks=" + weeks);
+            generator.option("--start=" + LocalDate.now().minusWeeks(weeks));
+            generator.option("--seed=" + seed);
+            generator.generate();
+        }
+    }
+
+    /**
+     * 会话基类：记录各操作的延迟样本
+     */
+    private abstract class Session {
+        final Random random;
+        final Stats stats = new Stats();
+
+        Session(Random random) {
+            this.random = random;
+        }
+
+        abstract void run() throws InterruptedException;
+
+        boolean running() {
+            return System.nanoTime() < deadline;
+        }
+
+        /**
+         * 执行并计时一次操作；业务异常（如时段已被预约）计为拒绝，其他异常计为错误
+         */
+        <T> T timed(Op op, Action<T> action) {
+            long begin = System.nanoTime();
+            int outcome = Stats.OK;
+            T result = null;
+            try {
+                result = action.run();
+            } catch (BusinessException e) {
+                outcome = Stats.REJECTED;
+            } catch (RuntimeException e) {
+                outcome = Stats.ERROR;
+                synchronized (LoadSimulator.class) {
+                    System.err.println(Thread.currentThread().getName() + " " + op.label + " 异常：" + e);
+                }
+            }
+            long end = System.nanoTime();
+            if (begin >= recordFrom) {
+                stats.record(op, end - begin, outcome);
+            }
+            return result;
+        }
+
+        void think() throws InterruptedException {
+            if (thinkMillis > 0) {
+                Thread.sleep(random.nextInt(thinkMillis * 2 + 1));
+            }
+        }
+
+        int pick(int[] weights) {
+            int r = random.nextInt(Arrays.stream(weights).sum());
+            for (int i = 0; i < weights.length; i++) {
+                r -= weights[i];
+                if (r < 0) {
+                    return i;
+                }
+            }
+            return weights.length - 1;
+        }
+    }
+
+    private interface Action<T> {
+        T run() throws BusinessException;
+    }
+
+    private class StudentSession extends Session {
+        StudentSession(Random random) {
+            super(random);
+        }
+
+        @Override
+        void run() throws InterruptedException {
+            while (running()) {
+                String studentId = studentIds[random.nextInt(studentIds.length)];
+                if (timed(Op.LOGIN, () -> userService.loginStudent(studentId)) == null) {
+                    continue;
+                }
+                for (int i = 0; i < sessionLength && running(); i++) {
+                    switch (pick(studentMix)) {
+                        case 0:
+                            timed(Op.BROWSE, () -> courtService.listAvailableCourts(randomSlot(), null));
+                            break;
+                        case 1:
+                            book(studentId);
+                            break;
+                        case 2:
+                            cancel(studentId);
+                            break;
+                        default:
+                            rate(studentId);
+                    }
+                    think();
+                }
+            }
+        }
+
+        /**
+         * 选课日式预约：先查询某个时段的空闲场地，再预约其中一个，并发时可能已被他人抢先；
+         * 没有空闲场地时仍尝试预约任意场地（应被冲突检测拒绝）
+         */
+        private void book(String studentId) {
+            TimeSlot slot = randomSlot();
+            List<Court> free = timed(Op.BROWSE, () -> courtService.listAvailableCourts(slot, null));
+            String courtId = free != null && !free.isEmpty()
+                    ? free.get(random.nextInt(free.size())).getCourtId()
+                    : courtIds[random.nextInt(courtIds.length)];
+            Booking booking = timed(Op.BOOK, () -> bookingService.createBooking(studentId, courtId, slot));
+            if (booking != null && slot.getDate().equals(firstDay)) {
+                recentBookings.offer(booking.getBookingId());
+            }
+        }
+
+        private void cancel(String studentId) {
+            Booking[] mine = timed(Op.MY_BOOKINGS, () -> bookingService.getBookingsByStudent(studentId));
+            Booking target = choose(mine, BookingState.PENDING, false);
+            if (target != null) {
+                timed(Op.CANCEL, () -> {
+                    bookingService.cancelBooking(studentId, target.getBookingId());
+                    return null;
+                });
+            }
+        }
+
+        private void rate(String studentId) {
+            Booking[] mine = timed(Op.MY_BOOKINGS, () -> bookingService.getBookingsByStudent(studentId));
+            Booking target = choose(mine, BookingState.COMPLETED, true);
+            if (target != null) {
+                int rating = 1 + random.nextInt(5);
+                timed(Op.RATE, () -> {
+                    bookingService.rateBooking(studentId, target.getBookingId(), rating);
+                    return null;
+                });
+            }
+        }
+
+        /**
+         * 从自己的预约中随机选一个处于 state 的（unratedOnly 时优先未评分的）
+         */
+        private Booking choose(Booking[] bookings, BookingState state, boolean unratedOnly) {
+            if (bookings == null || bookings.length == 0) {
+                return null;
+            }
+            int offset = random.nextInt(bookings.length);
+            Booking fallback = null;
+            for (int i = 0; i < bookings.length; i++) {
+                Booking booking = bookings[(offset + i) % bookings.length];
+                if (booking.getState() != state) {
+                    continue;
+                }
+                if (!unratedOnly || booking.getRating() == 0) {
+                    return booking;
+                }
+                if (fallback == null) {
+                    fallback = booking;
+                }
+            }
+            return fallback;
+        }
+
+        /**
+         * 预约窗口内的随机时段：8:00-21:00 的整点或半点开始，时长 1 或 2 小时
+         */
+        private TimeSlot randomSlot() {
+            LocalDate date = firstDay.plusDays(random.nextInt(windowDays));
+            LocalTime start = LocalTime.of(8, 0).plusMinutes(30L * random.nextInt(25));
+            return new TimeSlot(date, start, start.plusHours(1 + random.nextInt(2)));
+        }
+    }
+
+    private class AdminSession extends Session {
+        AdminSession(Random random) {
+            super(random);
+        }
+
+        @Override
+        void run() throws InterruptedException {
+            while (running()) {
+                if (timed(Op.ADMIN_LOGIN, () -> adminService.loginAdmin(adminId, adminPassword)) == null) {
+                    continue;
+                }
+                for (int i = 0; i < sessionLength && running(); i++) {
+                    switch (pick(adminMix)) {
+                        case 0:
+                            String bookingId = recentBookings.poll();
+                            if (bookingId != null) {
+                                timed(Op.CONFIRM, () -> {
+                                    adminService.confirmBookingCompleted(bookingId);
+                                    return null;
+                                });
+                            }
+                            break;
+                        case 1:
+                            toggleCourt();
+                            break;
+                        default:
+                            report();
+                    }
+                    think();
+                }
+            }
+        }
+
+        /**
+         * 把场地改为维护中，随后改回可用
+         */
+        private void toggleCourt() {
+            String courtId = courtIds[random.nextInt(courtIds.length)];
+            for (CourtStatus status : new CourtStatus[]{CourtStatus.MAINTENANCE, CourtStatus.AVAILABLE}) {
+                timed(Op.COURT_STATUS, () -> {
+                    courtService.changeCourtStatus(courtId, status);
+                    return null;
+                });
+            }
+        }
+
+        private void report() {
+            LocalDate end = LocalDate.now().plusDays(windowDays);
+            LocalDate begin = end.minusWeeks(weeks);
+            switch (random.nextInt(5)) {
+                case 0:
+                    timed(Op.REPORT, () -> statisticsService.earningsReport(begin, end));
+                    break;
+                case 1:
+                    timed(Op.REPORT, () -> statisticsService.earningsByCourt(begin, end));
+                    break;
+                case 2:
+                    timed(Op.REPORT, () -> statisticsService.getCourtRatingStatistics());
+                    break;
+                case 3:
+                    timed(Op.REPORT, () -> statisticsService.utilizationReport(begin, end));
+                    break;
+                default:
+                    timed(Op.REPORT, () -> statisticsService.buildReport(begin, end, null));
+            }
+        }
+    }
+
+    /**
+     * 各操作的延迟样本（纳秒）和结果计数，每个会话一份，结束后合并
+     */
+    private static final class Stats {
+        static final int OK = 0;
+        static final int REJECTED = 1;
+        static final int ERROR = 2;
+
+        private final long[][] samples = new long[Op.values().length][];
+        private final int[] sizes = new int[Op.values().length];
+        private final long[][] outcomes = new long[Op.values().length][3];
+
+        void record(Op op, long nanos, int outcome) {
+            int i = op.ordinal();
+            if (samples[i] == null) {
+                samples[i] = new long[1024];
+            } else if (sizes[i] == samples[i].length) {
+                samples[i] = Arrays.copyOf(samples[i], sizes[i] * 2);
+            }
+            samples[i][sizes[i]++] = nanos;
+            outcomes[i][outcome]++;
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < samples.length; i++) {
+                if (other.sizes[i] > 0) {
+                    long[] merged = samples[i] != null ? Arrays.copyOf(samples[i], sizes[i] + other.sizes[i])
+                            : new long[other.sizes[i]];
+                    System.arraycopy(other.samples[i], 0, merged, sizes[i], other.sizes[i]);
+                    samples[i] = merged;
+                    sizes[i] += other.sizes[i];
+                }
+                for (int k = 0; k < 3; k++) {
+                    outcomes[i][k] += other.outcomes[i][k];
+                }
+            }
+        }
+
+        long errorCount() {
+            long errors = 0;
+            for (long[] outcome : outcomes) {
+                errors += outcome[ERROR];
+            }
+            return errors;
+        }
+
+        void print(double seconds) {
+            System.out.printf("%-12s %10s %10s %8s %8s %10s %10s %10s%n",
+                    "操作", "次数", "次/秒", "拒绝", "错误", "p50(us)", "p99(us)", "最大(us)");
+            long totalOps = 0;
+            for (Op op : Op.values()) {
+                int i = op.ordinal();
+                if (sizes[i] == 0) {
+                    continue;
+                }
+                long[] sorted = Arrays.copyOf(samples[i], sizes[i]);
+                Arrays.sort(sorted);
+                totalOps += sizes[i];
+                System.out.printf("%-12s %10d %10.1f %8d %8d %10.1f %10.1f %10.1f%n",
+                        op.label, sizes[i], sizes[i] / seconds, outcomes[i][REJECTED], outcomes[i][ERROR],
+                        percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3,
+                        sorted[sorted.length - 1] / 1e3);
+            }
+            System.out.printf("合计 %d 次操作，%.1f 次/秒（%.1f 秒）%n", totalOps, totalOps / seconds, seconds);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    /**
+     * 同一场地同一天重叠的未取消预约对数
+     */
+    private static int countDuplicates(List<Booking> bookings) {
+        Map<String, List<Booking>> byCourtDay = new HashMap<>();
+        for (Booking booking : bookings) {
+            if (booking.getState() == BookingState.CANCELLED || booking.getSlot() == null) {
+                continue;
+            }
+            byCourtDay.computeIfAbsent(booking.getCourtId() + "|" + booking.getSlot().getEpochDay(),
+                    k -> new ArrayList<>()).add(booking);
+        }
+        int duplicates = 0;
+        for (List<Booking> day : byCourtDay.values()) {
+            day.sort((a, b) -> Integer.compare(a.getSlot().getStartSecondOfDay(), b.getSlot().getStartSecondOfDay()));
+            int latestEnd = -1;
+            for (Booking booking : day) {
+                if (booking.getSlot().getStartSecondOfDay() < latestEnd) {
+                    duplicates++;
+                }
+                latestEnd = Math.max(latestEnd, booking.getSlot().getEndSecondOfDay());
+            }
+        }
+        return duplicates;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
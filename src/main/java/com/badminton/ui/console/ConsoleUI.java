@@ -7,6 +7,8 @@ import com.badminton.util.BusinessException;
 import com.badminton.util.FeePolicy;
 import com.badminton.util.DefaultFeePolicy;
 
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -19,6 +21,8 @@ import java.util.Scanner;
  * 控制台用户界面
  */
 public class ConsoleUI {
+    private static final String[] WEEKDAY_NAMES = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
     private Scanner scanner;
     private JsonDB db;
     private UserService userService;
@@ -37,7 +41,7 @@ public class ConsoleUI {
         FeePolicy feePolicy = new DefaultFeePolicy();
         userService = new UserService(db);
         bookingService = new BookingService(db, feePolicy);
-        courtService = new CourtService(db, bookingService);
+        courtService = new CourtService(db);
         adminService = new AdminService(db);
         statisticsService = new StatisticsService(db);
         
@@ -89,6 +93,7 @@ public class ConsoleUI {
                     handleAdminLogin();
                     break;
                 case "4":
+                    closeDatabase();
                     System.out.println("感谢使用，再见！");
                     return;
                 default:
@@ -97,6 +102,17 @@ public class ConsoleUI {
         }
     }
 
+    /**
+     * 退出前关闭数据库：写完尚未落盘的日志并停止后台线程（日志的退出钩子只作兜底）
+     */
+    private void closeDatabase() {
+        try {
+            db.close();
+        } catch (UncheckedIOException e) {
+            System.out.println("保存数据失败：" + e.getMessage());
+        }
+    }
+
     private void printMainMenu() {
         System.out.println("\n================= 羽毛球馆预约系统 =================");
         System.out.println("1. 学生注册");
@@ -201,8 +217,8 @@ public class ConsoleUI {
             System.out.println("当天所有场地信息：");
             System.out.println();
             
-            Court[] allCourts = courtService.getAllCourts();
-            if (allCourts.length == 0) {
+            List<Court> allCourts = courtService.getAllCourts();
+            if (allCourts.isEmpty()) {
                 System.out.println("暂无场地信息");
             } else {
                 System.out.printf("%-12s %-10s %-12s%n", "场地编号", "类型", "状态");
@@ -352,7 +368,8 @@ public class ConsoleUI {
             System.out.println("3. 更改场地状态");
             System.out.println("4. 场地评分统计");
             System.out.println("5. 收入统计");
-            System.out.println("6. 注销/返回");
+            System.out.println("6. 场地使用率");
+            System.out.println("7. 注销/返回");
             System.out.print("请输入选项：");
 
             String choice = scanner.nextLine().trim();
@@ -373,6 +390,9 @@ public class ConsoleUI {
                     showEarningsReport();
                     break;
                 case "6":
+                    showUtilizationReport();
+                    break;
+                case "7":
                     currentAdmin = null;
                     return;
                 default:
@@ -383,7 +403,7 @@ public class ConsoleUI {
 
     private void showAllBookings() {
         System.out.println("\n--- 所有预约 ---");
-        Booking[] bookings = bookingService.getAllBookings();
+        List<Booking> bookings = bookingService.getAllBookings();
         
         // 过滤掉已取消的预约
         int validCount = 0;
@@ -432,7 +452,7 @@ public class ConsoleUI {
     private void changeCourtStatus() {
         try {
             System.out.println("\n--- 更改场地状态 ---");
-            Court[] courts = courtService.getAllCourts();
+            List<Court> courts = courtService.getAllCourts();
             System.out.println("场地列表：");
             for (Court court : courts) {
                 System.out.println("  " + court.getCourtId() + " - " + 
@@ -487,6 +507,64 @@ public class ConsoleUI {
 
             double earnings = statisticsService.earningsReport(startDate, endDate);
             System.out.println("总收入：" + String.format("%.2f", earnings) + "元");
+            System.out.println("按场地类型：");
+            for (Map.Entry<CourtType, Double> entry : statisticsService.earningsByType(startDate, endDate).entrySet()) {
+                System.out.printf("  %-10s %.2f元%n", entry.getKey(), entry.getValue());
+            }
+            System.out.println("按场地：");
+            for (Map.Entry<String, Double> entry : statisticsService.earningsByCourt(startDate, endDate).entrySet()) {
+                System.out.printf("  %-10s %.2f元%n", entry.getKey(), entry.getValue());
+            }
+        } catch (DateTimeParseException e) {
+            System.out.println("日期格式错误，请使用 yyyy-MM-dd 格式");
+        }
+    }
+
+    private void showUtilizationReport() {
+        System.out.println("\n--- 场地使用率 ---");
+        System.out.print("请输入开始日期（yyyy-MM-dd，留空表示最早的预约）：");
+        String startStr = scanner.nextLine().trim();
+        System.out.print("请输入结束日期（yyyy-MM-dd，留空表示最晚的预约）：");
+        String endStr = scanner.nextLine().trim();
+        System.out.print("请输入场地编号（留空表示所有场地）：");
+        String courtId = scanner.nextLine().trim();
+
+        try {
+            LocalDate startDate = startStr.isEmpty() ? null : LocalDate.parse(startStr, dateFormatter);
+            LocalDate endDate = endStr.isEmpty() ? null : LocalDate.parse(endStr, dateFormatter);
+            UtilizationReport report = statisticsService.utilizationReport(startDate, endDate);
+            if (!courtId.isEmpty() && !report.getCourtIds().contains(courtId)) {
+                System.out.println("场地不存在：" + courtId);
+                return;
+            }
+            if (report.getStartDate() == null || report.getFirstHour() > report.getLastHour()) {
+                System.out.println("所选时间段内暂无预约");
+                return;
+            }
+            String target = courtId.isEmpty() ? null : courtId;
+            System.out.println("统计区间：" + report.getStartDate() + " 至 " + report.getEndDate()
+                    + "，整体使用率：" + String.format("%.1f%%", report.getUtilization(target) * 100));
+
+            // 星期 × 小时的使用率（%），只显示有占用的小时范围
+            System.out.printf("%-4s", "");
+            for (int hour = report.getFirstHour(); hour <= report.getLastHour(); hour++) {
+                System.out.printf("%5d", hour);
+            }
+            System.out.println();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                System.out.printf("%-4s", WEEKDAY_NAMES[day.ordinal()]);
+                for (int hour = report.getFirstHour(); hour <= report.getLastHour(); hour++) {
+                    System.out.printf("%5.0f", report.getUtilization(target, day, hour) * 100);
+                }
+                System.out.println();
+            }
+            if (target == null) {
+                System.out.println("按场地：");
+                for (String id : report.getCourtIds()) {
+                    System.out.printf("  %-10s %.1f%%%s%n", id, report.getUtilization(id) * 100,
+                            report.isUnderMaintenance(id) ? "（维护中，不计入合计）" : "");
+                }
+            }
         } catch (DateTimeParseException e) {
             System.out.println("日期格式错误，请使用 yyyy-MM-dd 格式");
         }
@@ -7,14 +7,18 @@ import com.badminton.util.BusinessException;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 管理员功能面板
  */
 public class AdminDashboardPanel extends JPanel {
+    private static final String[] WEEKDAY_NAMES = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
     private MainFrame mainFrame;
     private AdminService adminService;
     private BookingService bookingService;
@@ -293,6 +297,10 @@ public class AdminDashboardPanel extends JPanel {
         earningsButton.addActionListener(e -> showEarningsReport());
         buttonPanel.add(earningsButton);
 
+        JButton utilizationButton = createStyledButton("场地使用率", 150, 40, new Color(70, 130, 180));
+        utilizationButton.addActionListener(e -> showUtilizationReport());
+        buttonPanel.add(utilizationButton);
+
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
         return panel;
@@ -359,8 +367,18 @@ public class AdminDashboardPanel extends JPanel {
                 LocalDate.of(2100, 12, 31) : LocalDate.parse(endStr, dateFormatter);
 
             double earnings = statisticsService.earningsReport(startDate, endDate);
+            StringBuilder message = new StringBuilder("总收入：" + String.format("%.2f", earnings) + "元\n");
+            for (Map.Entry<CourtType, Double> entry : statisticsService.earningsByType(startDate, endDate).entrySet()) {
+                message.append("\n").append(entry.getKey()).append("：")
+                        .append(String.format("%.2f", entry.getValue())).append("元");
+            }
+            message.append("\n");
+            for (Map.Entry<String, Double> entry : statisticsService.earningsByCourt(startDate, endDate).entrySet()) {
+                message.append("\n").append(entry.getKey()).append("：")
+                        .append(String.format("%.2f", entry.getValue())).append("元");
+            }
             JOptionPane.showMessageDialog(this, 
-                "总收入：" + String.format("%.2f", earnings) + "元", 
+                message.toString(), 
                 "收入统计", JOptionPane.INFORMATION_MESSAGE);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "统计失败：" + e.getMessage(), 
@@ -368,9 +386,111 @@ public class AdminDashboardPanel extends JPanel {
         }
     }
 
+    private void showUtilizationReport() {
+        String startStr = JOptionPane.showInputDialog(this,
+            "请输入开始日期（yyyy-MM-dd，留空表示最早的预约）：", "场地使用率", JOptionPane.QUESTION_MESSAGE);
+        if (startStr == null) {
+            return;
+        }
+        String endStr = JOptionPane.showInputDialog(this,
+            "请输入结束日期（yyyy-MM-dd，留空表示最晚的预约）：", "场地使用率", JOptionPane.QUESTION_MESSAGE);
+        if (endStr == null) {
+            return;
+        }
+
+        UtilizationReport report;
+        try {
+            LocalDate startDate = startStr.trim().isEmpty() ? null : LocalDate.parse(startStr.trim(), dateFormatter);
+            LocalDate endDate = endStr.trim().isEmpty() ? null : LocalDate.parse(endStr.trim(), dateFormatter);
+            report = statisticsService.utilizationReport(startDate, endDate);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "统计失败：" + e.getMessage(),
+                "错误", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (report.getStartDate() == null || report.getFirstHour() > report.getLastHour()) {
+            JOptionPane.showMessageDialog(this, "所选时间段内暂无预约", "场地使用率", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        // 星期 × 小时的热力图，只显示有占用的小时范围；可切换场地
+        String[] columns = new String[report.getLastHour() - report.getFirstHour() + 2];
+        columns[0] = "星期";
+        for (int hour = report.getFirstHour(); hour <= report.getLastHour(); hour++) {
+            columns[hour - report.getFirstHour() + 1] = hour + "时";
+        }
+        DefaultTableModel heatmapModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable heatmapTable = new JTable(heatmapModel);
+        heatmapTable.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+        heatmapTable.setRowHeight(28);
+        heatmapTable.getTableHeader().setReorderingAllowed(false);
+        heatmapTable.setDefaultRenderer(Object.class, new javax.swing.table.DefaultTableCellRenderer() {
+            @Override
+            public java.awt.Component getTableCellRendererComponent(JTable table, Object value,
+                    boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                setHorizontalAlignment(CENTER);
+                if (value instanceof Double) {
+                    // 使用率越高颜色越深：由白色渐变到钢蓝色
+                    double ratio = Math.min(1.0, (Double) value);
+                    setBackground(new Color(255 - (int) (185 * ratio), 255 - (int) (125 * ratio),
+                        255 - (int) (75 * ratio)));
+                    setForeground(ratio > 0.5 ? Color.WHITE : Color.BLACK);
+                    setText(String.format("%.0f%%", ratio * 100));
+                } else {
+                    setBackground(new Color(70, 130, 180));
+                    setForeground(Color.WHITE);
+                }
+                setOpaque(true);
+                return this;
+            }
+        });
+
+        String allCourts = "所有场地";
+        JComboBox<String> courtBox = new JComboBox<>();
+        courtBox.addItem(allCourts);
+        for (String courtId : report.getCourtIds()) {
+            courtBox.addItem(courtId);
+        }
+        JLabel summaryLabel = new JLabel();
+        Runnable fill = () -> {
+            String courtId = allCourts.equals(courtBox.getSelectedItem()) ? null : (String) courtBox.getSelectedItem();
+            heatmapModel.setRowCount(0);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Object[] row = new Object[columns.length];
+                row[0] = WEEKDAY_NAMES[day.ordinal()];
+                for (int hour = report.getFirstHour(); hour <= report.getLastHour(); hour++) {
+                    row[hour - report.getFirstHour() + 1] = report.getUtilization(courtId, day, hour);
+                }
+                heatmapModel.addRow(row);
+            }
+            summaryLabel.setText("统计区间：" + report.getStartDate() + " 至 " + report.getEndDate()
+                + "    整体使用率：" + String.format("%.1f%%", report.getUtilization(courtId) * 100)
+                + (courtId != null && report.isUnderMaintenance(courtId) ? "    （维护中，不计入所有场地合计）" : ""));
+        };
+        courtBox.addActionListener(e -> fill.run());
+        fill.run();
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        top.add(new JLabel("场地："));
+        top.add(courtBox);
+        top.add(summaryLabel);
+        JPanel content = new JPanel(new BorderLayout(0, 5));
+        content.add(top, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(heatmapTable);
+        scrollPane.setPreferredSize(new Dimension(Math.max(500, columns.length * 48), 260));
+        content.add(scrollPane, BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, content, "场地使用率", JOptionPane.PLAIN_MESSAGE);
+    }
+
     private void refreshBookings() {
         bookingsModel.setRowCount(0);
-        Booking[] bookings = bookingService.getAllBookings();
+        List<Booking> bookings = bookingService.getAllBookings();
         for (Booking booking : bookings) {
             // 过滤掉已取消的预约
             if (booking.getState() == BookingState.CANCELLED) {
@@ -390,7 +510,7 @@ public class AdminDashboardPanel extends JPanel {
 
     private void refreshCourts() {
         courtsModel.setRowCount(0);
-        Court[] courts = courtService.getAllCourts();
+        List<Court> courts = courtService.getAllCourts();
         
         // 设置自定义渲染器，用于标红维护中的场地
         courtsTable.setDefaultRenderer(Object.class, new javax.swing.table.DefaultTableCellRenderer() {
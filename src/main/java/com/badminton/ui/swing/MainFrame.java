@@ -8,6 +8,9 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.UncheckedIOException;
 
 /**
  * 主窗口
@@ -37,7 +40,7 @@ public class MainFrame extends JFrame {
         DefaultFeePolicy feePolicy = new DefaultFeePolicy();
         userService = new UserService(db);
         bookingService = new BookingService(db, feePolicy);
-        courtService = new CourtService(db, bookingService);
+        courtService = new CourtService(db);
         adminService = new AdminService(db);
         statisticsService = new StatisticsService(db);
 
@@ -85,6 +88,13 @@ public class MainFrame extends JFrame {
     private void initializeUI() {
         setTitle("校园羽毛球馆场地预约管理系统");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // 退出前关闭数据库：写完尚未落盘的日志并停止后台线程（日志的退出钩子只作兜底）
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeDatabase();
+            }
+        });
         setSize(1200, 800);
         setLocationRelativeTo(null);
         setMinimumSize(new Dimension(1000, 600));
@@ -110,12 +120,21 @@ public class MainFrame extends JFrame {
         add(mainPanel);
     }
 
+    private void closeDatabase() {
+        try {
+            db.close();
+        } catch (UncheckedIOException e) {
+            JOptionPane.showMessageDialog(this, "保存数据失败：" + e.getMessage(),
+                "错误", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
         
         JMenu fileMenu = new JMenu("文件");
         JMenuItem exitItem = new JMenuItem("退出");
-        exitItem.addActionListener(e -> System.exit(0));
+        exitItem.addActionListener(e -> dispatchEvent(new WindowEvent(this, WindowEvent.WINDOW_CLOSING)));
         fileMenu.add(exitItem);
 
         JMenu helpMenu = new JMenu("帮助");
@@ -429,7 +429,7 @@ public class StudentDashboardPanel extends JPanel {
      */
     private void showAllCourts() {
         availableCourtsModel.setRowCount(0);
-        Court[] courts = courtService.getAllCourts();
+        java.util.List<Court> courts = courtService.getAllCourts();
         
         // 尝试获取用户输入的时间段
         TimeSlot tempTimeSlot = null;
@@ -450,6 +450,21 @@ public class StudentDashboardPanel extends JPanel {
         }
         final TimeSlot userTimeSlot = tempTimeSlot;
         
+        // 一次取得该时段空闲的场地（占用位图），其余未维护的场地即为冲突，渲染器直接查结果
+        final java.util.Set<String> conflictCourtIds = new java.util.HashSet<>();
+        if (userTimeSlot != null) {
+            java.util.Set<String> freeCourtIds = new java.util.HashSet<>();
+            for (Court court : courtService.listAvailableCourts(userTimeSlot, null)) {
+                freeCourtIds.add(court.getCourtId());
+            }
+            for (Court court : courts) {
+                if (court.getStatus() != CourtStatus.MAINTENANCE
+                        && !freeCourtIds.contains(court.getCourtId())) {
+                    conflictCourtIds.add(court.getCourtId());
+                }
+            }
+        }
+        
         // 设置自定义渲染器，用于标红冲突的场地和维护中的场地
         availableCourtsTable.setDefaultRenderer(Object.class, new javax.swing.table.DefaultTableCellRenderer() {
             @Override
@@ -466,10 +481,8 @@ public class StudentDashboardPanel extends JPanel {
                     (statusObj.toString().equals("MAINTENANCE") || statusObj.toString().equals("UNAVAILABLE"));
                 
                 // 检查是否有时间段冲突
-                boolean hasConflict = false;
-                if (userTimeSlot != null && courtId != null && !isMaintenance) {
-                    hasConflict = bookingService.isConflict(courtId, userTimeSlot);
-                }
+                boolean hasConflict = courtId != null && !isMaintenance
+                    && conflictCourtIds.contains(courtId);
                 
                 // 如果维护中或有冲突，标红显示
                 if (isMaintenance || hasConflict) {
@@ -489,10 +502,7 @@ public class StudentDashboardPanel extends JPanel {
             boolean isMaintenance = court.getStatus() == CourtStatus.MAINTENANCE;
             
             // 检查是否有时间段冲突（仅在场地可用时检查）
-            boolean hasConflict = false;
-            if (!isMaintenance && userTimeSlot != null) {
-                hasConflict = bookingService.isConflict(court.getCourtId(), userTimeSlot);
-            }
+            boolean hasConflict = !isMaintenance && conflictCourtIds.contains(court.getCourtId());
             
             // 如果维护中或有冲突，状态显示为 UNAVAILABLE；否则显示实际状态
             Object statusDisplay;
@@ -0,0 +1,77 @@
+package com.badminton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并发测试辅助：所有线程就绪后由启动闩同时放行，等待全部结束，线程内的异常在调用线程中重新抛出
+ */
+public final class Concurrently {
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /**
+     * 在某个线程中执行的任务，参数为线程编号（从 0 开始）
+     */
+    public interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private Concurrently() {
+    }
+
+    /**
+     * 以 threads 个线程同时执行 task；任一线程失败时抛出 AssertionError，其余失败作为 suppressed 附加
+     */
+    public static void run(int threads, Task task) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "test-worker-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        ready.await();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            if (worker.isAlive()) {
+                throw new AssertionError(worker.getName() + " 在 " + TIMEOUT_SECONDS + " 秒内没有结束");
+            }
+        }
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError("工作线程异常: " + failures.get(0), failures.get(0));
+            for (int i = 1; i < failures.size(); i++) {
+                error.addSuppressed(failures.get(i));
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * 在栅栏处与其他线程汇合；有线程异常退出时超时并让栅栏失效，其他线程不会无限等待
+     */
+    public static void await(CyclicBarrier barrier) throws Exception {
+        try {
+            barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            barrier.reset();
+            throw e;
+        }
+    }
+}
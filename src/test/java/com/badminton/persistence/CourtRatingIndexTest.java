@@ -0,0 +1,115 @@
+package com.badminton.persistence;
+
+import com.badminton.Concurrently;
+import com.badminton.model.*;
+import com.badminton.service.AdminService;
+import com.badminton.service.BookingService;
+import com.badminton.util.BusinessException;
+import com.badminton.util.DefaultFeePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 增量维护的评分汇总与逐条统计的结果一致
+ */
+class CourtRatingIndexTest {
+    private static final int COURTS = 3;
+    private static final int BOOKINGS = 240;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void concurrentRatingsMatchPerBookingTotals() throws Exception {
+        try (JsonDB db = JsonDB.loadFromFile(dataDir.toString())) {
+            db.setSnapshotPolicy(SnapshotPolicy.never());
+            db.setDurabilityMode(DurabilityMode.ASYNC, 20);
+            List<Booking> completed = completedBookings(db);
+            BookingService bookingService = new BookingService(db, new DefaultFeePolicy());
+
+            // 两个线程对同一批预约评不同的分，最终每个预约保留其中一次评分
+            Concurrently.run(2, t -> {
+                for (int i = 0; i < completed.size(); i++) {
+                    Booking booking = completed.get(i);
+                    bookingService.rateBooking("S1", booking.getBookingId(), 1 + (i + t) % 5);
+                }
+            });
+
+            assertRatingsMatch(db);
+            db.flush();
+            try (JsonDB reloaded = JsonDB.loadFromFile(dataDir.toString())) {
+                assertRatingsMatch(reloaded);
+            }
+        }
+    }
+
+    @Test
+    void outOfRangeRatingsAreIgnored() {
+        CourtRatingIndex index = new CourtRatingIndex();
+        index.update("C001", 0, 4);
+        index.update("C001", 0, 9);
+        index.update("C001", 0, -1);
+        index.update("C001", 9, 2);
+        CourtRatingIndex.Summary summary = index.get("C001");
+        assertEquals(2, summary.getCount());
+        assertEquals(3.0, summary.getAverage(), 1e-9);
+    }
+
+    @Test
+    void bookingRejectsOutOfRangeRatings() {
+        TimeSlot slot = new TimeSlot(LocalDate.now(), LocalTime.of(8, 0), LocalTime.of(9, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Booking("B1", null, "C001", slot,
+                BookingState.COMPLETED, 10.0, 6, LocalDateTime.now()));
+        Booking booking = new Booking("B1", null, "C001", slot, BookingState.COMPLETED, 10.0, 0,
+                LocalDateTime.now());
+        assertThrows(IllegalArgumentException.class, () -> booking.setRating(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> booking.compareAndSetRating(BookingState.COMPLETED, booking.getVersion(), 256));
+        assertEquals(0, booking.getRating());
+        assertEquals(BookingState.COMPLETED, booking.getState());
+    }
+
+    private static List<Booking> completedBookings(JsonDB db) throws BusinessException {
+        for (int i = 0; i < COURTS; i++) {
+            db.addCourt(new Court(String.format("C%03d", i + 1), CourtType.SINGLES, CourtStatus.AVAILABLE, 5.0));
+        }
+        db.addStudent(new Student("S1", "学生", "13800000001"));
+        BookingService bookingService = new BookingService(db, new DefaultFeePolicy());
+        AdminService adminService = new AdminService(db);
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        List<Booking> completed = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalTime start = LocalTime.of(8 + (i / COURTS) % 12, 0);
+            Booking booking = bookingService.createBooking("S1", String.format("C%03d", i % COURTS + 1),
+                    new TimeSlot(firstDay.plusDays(i / (COURTS * 12)), start, start.plusHours(1)));
+            adminService.confirmBookingCompleted(booking.getBookingId());
+            completed.add(booking);
+        }
+        return completed;
+    }
+
+    private static void assertRatingsMatch(JsonDB db) {
+        Map<String, long[]> expected = new HashMap<>();
+        for (Booking booking : db.getBookingSnapshot()) {
+            if (booking.getRating() > 0) {
+                expected.computeIfAbsent(booking.getCourtId(), k -> new long[6])[booking.getRating()]++;
+            }
+        }
+        assertEquals(expected.keySet(), db.getCourtRatingSummaries().keySet());
+        for (Map.Entry<String, long[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), db.getCourtRatingSummary(entry.getKey()).getHistogram(),
+                    entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.badminton.persistence;
+
+import com.badminton.Concurrently;
+import com.badminton.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 收入汇总的区间查询与逐条累加的结果一致
+ */
+class RevenueCubeTest {
+    private static final BookingState[] STATES = BookingState.values();
+    private static final CourtType[] TYPES = CourtType.values();
+
+    @Test
+    void rangeQueriesMatchBruteForce() {
+        RevenueCube cube = new RevenueCube();
+        List<Entry> entries = new ArrayList<>();
+        Random random = new Random(1);
+        // 日期分布在相距很远的几段上，包括纪元之前和很远的将来
+        long[] clusters = {-3000, -1, 0, 511, 512, 18000, 20000, 2_000_000};
+        for (int i = 0; i < 3000; i++) {
+            Entry entry = new Entry(booking(i, clusters[random.nextInt(clusters.length)] + random.nextInt(700),
+                    "C" + random.nextInt(3), 1 + random.nextInt(5000) / 100.0), TYPES[random.nextInt(TYPES.length)],
+                    STATES[random.nextInt(STATES.length)]);
+            cube.add(entry.booking, entry.type, entry.state);
+            entries.add(entry);
+        }
+        // 部分预约改变状态
+        for (int i = 0; i < entries.size(); i += 3) {
+            Entry entry = entries.get(i);
+            BookingState next = STATES[(entry.state.ordinal() + 1) % STATES.length];
+            cube.move(entry.booking, entry.type, entry.state, next);
+            entry.state = next;
+        }
+
+        for (int q = 0; q < 500; q++) {
+            long from = clusters[random.nextInt(clusters.length)] + random.nextInt(1400) - 700;
+            long to = q % 10 == 0 ? Long.MAX_VALUE : from + random.nextInt(3000);
+            BookingState state = q % 4 == 0 ? null : STATES[random.nextInt(STATES.length)];
+            assertTotals(entries, e -> true, state, from, to, cube.query(state, from, to));
+            assertTotals(entries, e -> e.booking.getCourtId().equals("C1"), state, from, to,
+                    cube.queryCourt("C1", state, from, to));
+            assertTotals(entries, e -> e.type == TYPES[0], state, from, to, cube.queryType(TYPES[0], state, from, to));
+        }
+    }
+
+    @Test
+    void concurrentMovesKeepTotals() throws Exception {
+        RevenueCube cube = new RevenueCube();
+        int perThread = 2000;
+        Concurrently.run(4, t -> {
+            for (int i = 0; i < perThread; i++) {
+                Booking booking = booking(t * perThread + i, 18000 + i % 400, "C" + t, 10.0);
+                cube.add(booking, TYPES[0], BookingState.PENDING);
+                cube.move(booking, TYPES[0], BookingState.PENDING, BookingState.COMPLETED);
+            }
+        });
+        RevenueCube.Totals completed = cube.query(BookingState.COMPLETED, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4 * perThread, completed.getCount());
+        assertEquals(4 * perThread * 10.0, completed.getRevenue(), 1e-6);
+        assertEquals(0, cube.query(BookingState.PENDING, Long.MIN_VALUE, Long.MAX_VALUE).getCount());
+    }
+
+    private static void assertTotals(List<Entry> entries, java.util.function.Predicate<Entry> filter,
+                                     BookingState state, long from, long to, RevenueCube.Totals actual) {
+        long count = 0;
+        long cents = 0;
+        for (Entry entry : entries) {
+            long day = entry.booking.getSlot().getEpochDay();
+            if (filter.test(entry) && (state == null || entry.state == state) && day >= from && day <= to) {
+                count++;
+                cents += Math.round(entry.booking.getFee() * 100);
+            }
+        }
+        assertEquals(count, actual.getCount(), "[" + from + ", " + to + "] " + state);
+        assertEquals(cents, Math.round(actual.getRevenue() * 100), "[" + from + ", " + to + "] " + state);
+    }
+
+    private static Booking booking(int i, long epochDay, String courtId, double fee) {
+        TimeSlot slot = new TimeSlot(LocalDate.ofEpochDay(epochDay), LocalTime.of(8, 0), LocalTime.of(9, 0));
+        return new Booking("B" + i, null, courtId, slot, BookingState.PENDING, fee, 0, LocalDateTime.now());
+    }
+
+    private static final class Entry {
+        final Booking booking;
+        final CourtType type;
+        BookingState state;
+
+        Entry(Booking booking, CourtType type, BookingState state) {
+            this.booking = booking;
+            this.type = type;
+            this.state = state;
+        }
+    }
+}
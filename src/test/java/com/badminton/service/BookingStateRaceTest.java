@@ -0,0 +1,103 @@
+package com.badminton.service;
+
+import com.badminton.Concurrently;
+import com.badminton.model.*;
+import com.badminton.persistence.DurabilityMode;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import com.badminton.util.BusinessException;
+import com.badminton.util.DefaultFeePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预约状态按 (状态, 版本号) 做 CAS：并发的取消和确认完成只有一方成功
+ */
+class BookingStateRaceTest {
+    private static final int BOOKINGS = 300;
+
+    @TempDir
+    Path dataDir;
+
+    private JsonDB db;
+    private BookingService bookingService;
+    private AdminService adminService;
+    private final List<Booking> pending = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws BusinessException {
+        db = JsonDB.loadFromFile(dataDir.toString());
+        db.setSnapshotPolicy(SnapshotPolicy.never());
+        db.setDurabilityMode(DurabilityMode.ASYNC, 20);
+        db.addCourt(new Court("C001", CourtType.SINGLES, CourtStatus.AVAILABLE, 5.0));
+        db.addStudent(new Student("S1", "学生", "13800000001"));
+        bookingService = new BookingService(db, new DefaultFeePolicy());
+        adminService = new AdminService(db);
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalTime start = LocalTime.of(8 + i % 12, 0);
+            pending.add(bookingService.createBooking("S1", "C001",
+                    new TimeSlot(firstDay.plusDays(i / 12), start, start.plusHours(1))));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        Booking booking = pending.get(0);
+        long version = booking.getVersion();
+        assertTrue(db.compareAndSetBookingState(booking, BookingState.PENDING, version, BookingState.COMPLETED));
+        assertEquals(version + 1, booking.getVersion());
+        assertFalse(db.compareAndSetBookingState(booking, BookingState.COMPLETED, version, BookingState.CANCELLED),
+                "旧版本号的修改应失败");
+        assertFalse(db.compareAndSetBookingState(booking, BookingState.PENDING, version + 1, BookingState.CANCELLED),
+                "状态不符的修改应失败");
+        assertEquals(BookingState.COMPLETED, booking.getState());
+    }
+
+    @Test
+    void concurrentCancelAndConfirmHaveExactlyOneWinner() throws Exception {
+        boolean[] cancelled = new boolean[BOOKINGS];
+        boolean[] completed = new boolean[BOOKINGS];
+        CyclicBarrier round = new CyclicBarrier(2);
+        Concurrently.run(2, t -> {
+            for (int i = 0; i < BOOKINGS; i++) {
+                Booking booking = pending.get(i);
+                Concurrently.await(round);
+                try {
+                    if (t == 0) {
+                        bookingService.cancelBooking("S1", booking.getBookingId());
+                        cancelled[i] = true;
+                    } else {
+                        adminService.confirmBookingCompleted(booking.getBookingId());
+                        completed[i] = true;
+                    }
+                } catch (BusinessException e) {
+                    // 另一方已成功
+                }
+            }
+        });
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = pending.get(i);
+            assertNotEquals(cancelled[i], completed[i], "恰好一方成功：" + booking);
+            assertEquals(cancelled[i] ? BookingState.CANCELLED : BookingState.COMPLETED, booking.getState());
+            assertEquals(!cancelled[i], db.hasConflict("C001", booking.getSlot()), "冲突索引：" + booking);
+        }
+    }
+}
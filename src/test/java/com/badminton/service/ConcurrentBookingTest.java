@@ -0,0 +1,175 @@
+package com.badminton.service;
+
+import com.badminton.Concurrently;
+import com.badminton.model.*;
+import com.badminton.persistence.DurabilityMode;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import com.badminton.util.BusinessException;
+import com.badminton.util.DefaultFeePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发预约不会重复占用同一场地的同一时段
+ */
+class ConcurrentBookingTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+    private static final int COURTS = 4;
+
+    @TempDir
+    Path dataDir;
+
+    private JsonDB db;
+    private BookingService bookingService;
+    private LocalDate firstDay;
+
+    @BeforeEach
+    void setUp() {
+        db = JsonDB.loadFromFile(dataDir.toString());
+        db.setSnapshotPolicy(SnapshotPolicy.never());
+        db.setDurabilityMode(DurabilityMode.ASYNC, 20);
+        for (int i = 0; i < COURTS; i++) {
+            db.addCourt(new Court(courtId(i), CourtType.values()[i % CourtType.values().length],
+                    CourtStatus.AVAILABLE, 5.0));
+        }
+        for (int t = 0; t < THREADS; t++) {
+            db.addStudent(new Student("S" + t, "学生" + t, String.format("138%08d", t)));
+        }
+        bookingService = new BookingService(db, new DefaultFeePolicy());
+        firstDay = LocalDate.now().plusDays(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    /**
+     * 每轮所有线程同时预约同一个新时段（部分线程错开 10 分钟，覆盖位图无法直接判定的情况），恰好一个成功
+     */
+    @Test
+    void overlappingRequestsAdmitExactlyOneBooking() throws Exception {
+        AtomicIntegerArray successes = new AtomicIntegerArray(ROUNDS);
+        CyclicBarrier round = new CyclicBarrier(THREADS);
+        Concurrently.run(THREADS, t -> {
+            Random random = new Random(t);
+            for (int i = 0; i < ROUNDS; i++) {
+                Concurrently.await(round);
+                try {
+                    int offset = random.nextInt(4) == 0 ? 10 : 0;
+                    bookingService.createBooking("S" + t, courtId(i % COURTS), slot(i, offset));
+                    successes.incrementAndGet(i);
+                } catch (BusinessException e) {
+                    assertEquals("该时段场地已被预约", e.getMessage());
+                }
+            }
+        });
+
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(1, successes.get(i), "第 " + i + " 轮的成功次数");
+        }
+        assertNoDoubleBooking(db, ROUNDS);
+    }
+
+    /**
+     * 预约、取消交错进行后，从日志重放和从快照加载都得到相同的预约集合，且仍没有重复预约
+     */
+    @Test
+    void reloadAfterConcurrentBookingAndCancellationKeepsState() throws Exception {
+        CyclicBarrier round = new CyclicBarrier(THREADS);
+        Concurrently.run(THREADS, t -> {
+            Random random = new Random(t);
+            List<Booking> mine = new ArrayList<>();
+            for (int i = 0; i < ROUNDS; i++) {
+                Concurrently.await(round);
+                try {
+                    mine.add(bookingService.createBooking("S" + t, courtId(i % COURTS), slot(i, 0)));
+                } catch (BusinessException e) {
+                    // 被其他线程抢先
+                }
+                if (!mine.isEmpty() && random.nextInt(5) == 0) {
+                    Booking booking = mine.remove(random.nextInt(mine.size()));
+                    bookingService.cancelBooking("S" + t, booking.getBookingId());
+                }
+            }
+        });
+        int bookings = db.getBookingCount();
+        assertNoDoubleBooking(db, bookings);
+
+        db.flush();
+        try (JsonDB replayed = JsonDB.loadFromFile(dataDir.toString())) {
+            assertSameBookings(db, replayed);
+            assertNoDoubleBooking(replayed, bookings);
+        }
+        db.saveToFile();
+        try (JsonDB reloaded = JsonDB.loadFromFile(dataDir.toString())) {
+            assertSameBookings(db, reloaded);
+            assertNoDoubleBooking(reloaded, bookings);
+        }
+    }
+
+    /**
+     * 同一场地同一天没有两个重叠的未取消预约，主键索引和冲突索引与预约列表一致
+     */
+    static void assertNoDoubleBooking(JsonDB db, int expectedBookings) {
+        List<Booking> bookings = db.getBookingSnapshot();
+        assertEquals(expectedBookings, bookings.size(), "预约数");
+        Map<String, List<Booking>> byCourtDay = new HashMap<>();
+        for (Booking booking : bookings) {
+            assertSame(booking, db.findBookingById(booking.getBookingId()), "主键索引");
+            if (booking.getState() == BookingState.CANCELLED) {
+                continue;
+            }
+            assertTrue(db.hasConflict(booking.getCourtId(), booking.getSlot()), "冲突索引缺少 " + booking);
+            byCourtDay.computeIfAbsent(booking.getCourtId() + "@" + booking.getSlot().getDate(),
+                    k -> new ArrayList<>()).add(booking);
+        }
+        for (List<Booking> day : byCourtDay.values()) {
+            for (int i = 0; i < day.size(); i++) {
+                for (int j = i + 1; j < day.size(); j++) {
+                    assertFalse(day.get(i).getSlot().overlaps(day.get(j).getSlot()),
+                            "重复预约 " + day.get(i) + " / " + day.get(j));
+                }
+            }
+        }
+    }
+
+    private static void assertSameBookings(JsonDB expected, JsonDB actual) {
+        for (Booking booking : expected.getBookingSnapshot()) {
+            Booking other = actual.findBookingById(booking.getBookingId());
+            assertNotNull(other, "重新加载后缺少 " + booking.getBookingId());
+            assertEquals(booking.getState(), other.getState(), booking.getBookingId());
+            assertEquals(booking.getRating(), other.getRating(), booking.getBookingId());
+        }
+    }
+
+    /**
+     * 第 round 轮的时段：场地轮换，每天 8:00-20:00 每隔一小时一个时段，错开 10 分钟后各轮仍互不重叠
+     */
+    private TimeSlot slot(int round, int offsetMinutes) {
+        LocalDate date = firstDay.plusDays(round / (COURTS * 6));
+        LocalTime start = LocalTime.of(8 + 2 * ((round / COURTS) % 6), offsetMinutes);
+        return new TimeSlot(date, start, start.plusHours(1));
+    }
+
+    private static String courtId(int i) {
+        return String.format("C%03d", i + 1);
+    }
+}
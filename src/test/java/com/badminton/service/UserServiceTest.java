@@ -0,0 +1,46 @@
+package com.badminton.service;
+
+import com.badminton.Concurrently;
+import com.badminton.model.Student;
+import com.badminton.persistence.JsonDB;
+import com.badminton.persistence.SnapshotPolicy;
+import com.badminton.util.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 学生注册
+ */
+class UserServiceTest {
+    private static final int THREADS = 16;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void concurrentRegistrationOfSameIdSucceedsOnce() throws Exception {
+        try (JsonDB db = JsonDB.loadFromFile(dataDir.toString())) {
+            db.setSnapshotPolicy(SnapshotPolicy.never());
+            UserService userService = new UserService(db);
+            AtomicInteger registered = new AtomicInteger();
+            AtomicInteger duplicates = new AtomicInteger();
+            Concurrently.run(THREADS, t -> {
+                try {
+                    userService.registerStudent(new Student("S1", "学生" + t, String.format("139%08d", t)));
+                    registered.incrementAndGet();
+                } catch (BusinessException e) {
+                    assertEquals("该学号已注册", e.getMessage());
+                    duplicates.incrementAndGet();
+                }
+            });
+            assertEquals(1, registered.get());
+            assertEquals(THREADS - 1, duplicates.get());
+            assertEquals(1, db.getStudentCount());
+        }
+    }
+}
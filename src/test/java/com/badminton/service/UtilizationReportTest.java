@@ -0,0 +1,58 @@
+package com.badminton.service;
+
+import com.badminton.model.Booking;
+import com.badminton.model.BookingState;
+import com.badminton.model.TimeSlot;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 使用率按营业时间计算可预约时间，维护中的场地不计入合计
+ */
+class UtilizationReportTest {
+    private static final int OPEN = 8 * 3600;
+    private static final int CLOSE = 22 * 3600 + 30 * 60;
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void availableTimeFollowsOpeningHours() {
+        UtilizationReport report = UtilizationReport.build(
+                Collections.singletonList(booking("B1", "C001", 8, 10)),
+                Collections.singletonList("C001"), Collections.emptySet(), OPEN, CLOSE, MONDAY, MONDAY);
+        assertEquals(0, report.getAvailableMinutes(DayOfWeek.MONDAY, 7));
+        assertEquals(60, report.getAvailableMinutes(DayOfWeek.MONDAY, 8));
+        assertEquals(30, report.getAvailableMinutes(DayOfWeek.MONDAY, 22));
+        assertEquals(0, report.getAvailableMinutes(DayOfWeek.TUESDAY, 8));
+        assertEquals(1.0, report.getUtilization("C001", DayOfWeek.MONDAY, 9), 1e-9);
+        assertEquals(0.0, report.getUtilization("C001", DayOfWeek.MONDAY, 7), 1e-9);
+        // 2 小时 / 14.5 小时营业时间
+        assertEquals(2 / 14.5, report.getUtilization("C001"), 1e-9);
+    }
+
+    @Test
+    void maintenanceCourtsAreExcludedFromTotals() {
+        List<Booking> bookings = Arrays.asList(booking("B1", "C001", 8, 9), booking("B2", "C002", 8, 12));
+        UtilizationReport report = UtilizationReport.build(bookings, Arrays.asList("C001", "C002"),
+                Collections.singleton("C002"), OPEN, CLOSE, MONDAY, MONDAY);
+        assertTrue(report.isUnderMaintenance("C002"));
+        assertFalse(report.isUnderMaintenance("C001"));
+        assertEquals(60.0, report.getBookedMinutes(null, DayOfWeek.MONDAY, 8), 1e-9);
+        assertEquals(1.0, report.getUtilization(null, DayOfWeek.MONDAY, 8), 1e-9);
+        assertEquals(1 / 14.5, report.getUtilization(null), 1e-9);
+        assertEquals(4 / 14.5, report.getUtilization("C002"), 1e-9);
+    }
+
+    private static Booking booking(String bookingId, String courtId, int startHour, int endHour) {
+        TimeSlot slot = new TimeSlot(MONDAY, LocalTime.of(startHour, 0), LocalTime.of(endHour, 0));
+        return new Booking(bookingId, null, courtId, slot, BookingState.PENDING, 10.0, 0, LocalDateTime.now());
+    }
+}